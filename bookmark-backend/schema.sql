@@ -28,11 +28,15 @@ CREATE TABLE IF NOT EXISTS `user` (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户表';
 
 -- 书签表
+-- ft_bookmark_text 使用 ngram 解析器，必须关闭停用词后再建索引：
+-- 默认停用词表包含单字母 a、i，ngram 会丢弃所有包含停用词的词元，导致 "java"、"mail" 等关键词无法匹配
+SET SESSION innodb_ft_enable_stopword = OFF;
 CREATE TABLE IF NOT EXISTS `bookmark` (
   `id` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '书签ID',
   `user_id` BIGINT NOT NULL COMMENT '用户ID',
   `title` VARCHAR(255) NOT NULL COMMENT '书签标题',
   `url` VARCHAR(2048) NOT NULL COMMENT '书签URL',
+  `url_hash` CHAR(32) COMMENT 'URL去重哈希: MD5(规范化URL)',
   `description` TEXT COMMENT '描述',
   `icon_url` VARCHAR(500) COMMENT '网站图标URL',
   `category_id` BIGINT COMMENT '分类ID',
@@ -46,6 +50,10 @@ CREATE TABLE IF NOT EXISTS `bookmark` (
   INDEX idx_user_id (`user_id`),
   INDEX idx_category_id (`category_id`),
   INDEX idx_create_time (`create_time`),
+  INDEX idx_user_status_category (`user_id`, `status`, `category_id`),
+  INDEX idx_update_time (`update_time`, `id`),
+  INDEX idx_user_url_hash (`user_id`, `url_hash`, `status`),
+  FULLTEXT INDEX ft_bookmark_text (`title`, `description`, `tags`, `url`) WITH PARSER ngram,
   FOREIGN KEY (`user_id`) REFERENCES `user`(`id`) ON DELETE CASCADE,
   FOREIGN KEY (`category_id`) REFERENCES `category`(`id`) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='书签表';
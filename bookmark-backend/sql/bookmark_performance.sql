@@ -0,0 +1,69 @@
+-- 书签查询性能优化
+-- 功能: 为高频查询补充复合索引
+-- 注意: 如果提示 Duplicate key name 错误，说明索引已存在，可忽略
+
+-- ============================================
+-- 1. 分类书签数量统计（GROUP BY category_id）
+-- 对应 BookmarkMapper.countByCategory / countByUserAndCategory
+-- ============================================
+ALTER TABLE bookmark ADD INDEX idx_user_status_category (user_id, status, category_id);
+
+-- ============================================
+-- 2. ES 增量同步（按 update_time 水位读取变化）
+-- 对应 BookmarkMapper.selectChangedSince
+-- ============================================
+ALTER TABLE bookmark ADD INDEX idx_update_time (update_time, id);
+
+-- ============================================
+-- 3. 关键词搜索（ngram 全文索引，替代 LIKE '%kw%'）
+-- 对应 MysqlSearchEngine 及书签列表/高级搜索的关键词条件
+-- 注意: ngram_token_size 使用默认值 2；建索引期间会锁表，数据量大时请在低峰期执行
+-- 注意: 必须关闭停用词后再建索引。InnoDB 默认停用词表包含单字母 a、i，ngram 解析器会丢弃所有
+--       包含停用词的词元（如 "java" 的 ja、av、va 都含 a），"java"、"mail"、"github" 等关键词将无法匹配
+--       停用词设置在建索引时生效，服务端也应配置 innodb_ft_enable_stopword=OFF（见 docker-compose.yml），
+--       否则之后的表重建（OPTIMIZE TABLE、ALTER TABLE ... FORCE）会按默认停用词表重建索引
+-- 注意: 已按旧版本脚本建过该索引的，先执行 DROP INDEX 再重新创建（未建过时 DROP 报错可忽略）
+-- ============================================
+SET SESSION innodb_ft_enable_stopword = OFF;
+ALTER TABLE bookmark DROP INDEX ft_bookmark_text;
+ALTER TABLE bookmark ADD FULLTEXT INDEX ft_bookmark_text (title, description, tags, url) WITH PARSER ngram;
+
+-- ============================================
+-- 4. 书签列表游标翻页（置顶优先、创建时间倒序）
+-- 对应 BookmarkService.getBookmarkListByCursor
+-- (is_pinned, create_time, id) < 游标 的条件与排序都在索引内完成，深翻页不再 OFFSET 扫描
+-- 注意: is_pinned 列由 user_features_v2.sql 添加，请先执行该脚本
+-- ============================================
+ALTER TABLE bookmark ADD INDEX idx_user_status_pinned_time (user_id, status, is_pinned, create_time, id);
+
+-- ============================================
+-- 5. 书签列表排序（置顶优先 + 排序列 + id）
+-- 对应 BookmarkSortPlanner 的排序白名单，每种排序对应一个索引:
+--   create_time desc -> idx_user_status_pinned_time（第 4 节）
+--   create_time asc  -> idx_user_status_pinned_time_asc
+--   update_time desc -> idx_user_status_pinned_update
+--   visit_count desc -> idx_user_status_pinned_visit
+--   title asc        -> idx_user_status_pinned_title_asc
+-- is_pinned 固定倒序，排序列为升序时需要 is_pinned DESC 的索引才能避免 filesort（MySQL 8.0+）
+-- ============================================
+ALTER TABLE bookmark ADD INDEX idx_user_status_pinned_time_asc (user_id, status, is_pinned DESC, create_time, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_pinned_update (user_id, status, is_pinned, update_time, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_pinned_visit (user_id, status, is_pinned, visit_count, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_pinned_title_asc (user_id, status, is_pinned DESC, title, id);
+
+-- ============================================
+-- 6. 按分类筛选的书签列表排序（分类 + 置顶优先 + 排序列 + id）
+-- 对应 BookmarkSortPlanner 在 categoryId 不为空时的排序计划，每种排序对应一个索引:
+--   create_time desc -> idx_user_status_category_pinned_time
+--   create_time asc  -> idx_user_status_category_pinned_time_asc
+--   update_time desc -> idx_user_status_category_pinned_update
+--   visit_count desc -> idx_user_status_category_pinned_visit
+--   title asc        -> idx_user_status_category_pinned_title_asc
+-- 第 5 节的索引以 is_pinned 开头，分类条件只能回表过滤；category_id 放在 is_pinned 前面后，
+-- 分类列表同样是索引范围扫描，不需要 filesort
+-- ============================================
+ALTER TABLE bookmark ADD INDEX idx_user_status_category_pinned_time (user_id, status, category_id, is_pinned, create_time, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_category_pinned_time_asc (user_id, status, category_id, is_pinned DESC, create_time, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_category_pinned_update (user_id, status, category_id, is_pinned, update_time, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_category_pinned_visit (user_id, status, category_id, is_pinned, visit_count, id);
+ALTER TABLE bookmark ADD INDEX idx_user_status_category_pinned_title_asc (user_id, status, category_id, is_pinned DESC, title, id);
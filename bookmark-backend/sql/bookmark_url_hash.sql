@@ -0,0 +1,45 @@
+-- 书签 URL 去重哈希
+-- 功能: 新增 url_hash 列（规范化 URL 的 MD5），导入、新建书签和重复书签报告按 (user_id, url_hash) 索引去重
+-- 注意: 需要 MySQL 8.0+（REGEXP_REPLACE）；如果提示 Duplicate column name / Duplicate key name 错误，说明已执行过，可忽略
+
+-- ============================================
+-- 1. 新增列
+-- ============================================
+ALTER TABLE bookmark ADD COLUMN url_hash CHAR(32) COMMENT 'URL去重哈希: MD5(规范化URL)';
+
+-- ============================================
+-- 2. 回填已有书签
+-- 规范化规则与 UrlHashUtils.normalize 一致：转小写，去掉协议、www. 前缀和结尾的 /
+-- 不修改 update_time，避免触发 ES 增量同步
+-- 存储过程按主键区间每次处理 10000 个 id 并提交，直到最大 id，避免单条 UPDATE 长时间锁表，
+-- 也不会每轮重新扫描已回填的行；中断后或新版本上线前又有旧版本写入的书签时重新执行即可，已回填的行会被跳过
+-- 注意: 使用 mysql 命令行客户端执行（DELIMITER 为客户端命令）
+-- ============================================
+DROP PROCEDURE IF EXISTS backfill_bookmark_url_hash;
+
+DELIMITER //
+CREATE PROCEDURE backfill_bookmark_url_hash()
+BEGIN
+    DECLARE last_id BIGINT DEFAULT 0;
+    DECLARE max_id BIGINT;
+    SELECT IFNULL(MAX(id), 0) INTO max_id FROM bookmark;
+    WHILE last_id < max_id DO
+        UPDATE bookmark
+        SET update_time = update_time,
+            url_hash = MD5(REGEXP_REPLACE(REGEXP_REPLACE(REGEXP_REPLACE(LOWER(url), '^https?://', ''), '^www\\.', ''), '/$', ''))
+        WHERE id > last_id AND id <= last_id + 10000 AND url_hash IS NULL;
+        COMMIT;
+        SET last_id = last_id + 10000;
+    END WHILE;
+END //
+DELIMITER ;
+
+CALL backfill_bookmark_url_hash();
+DROP PROCEDURE backfill_bookmark_url_hash;
+
+-- ============================================
+-- 3. 去重查询索引
+-- 对应 BookmarkMapper.selectExistingUrlHashes / selectDuplicateUrlHashes
+-- 末尾的 status 使按哈希查找和分组统计只读索引，不回表
+-- ============================================
+ALTER TABLE bookmark ADD INDEX idx_user_url_hash (user_id, url_hash, status);
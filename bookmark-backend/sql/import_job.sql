@@ -0,0 +1,26 @@
+-- 书签导入任务表
+-- 功能: 导入在后台线程池中执行，接口提交后立即返回任务ID，通过 GET /data/import/{jobId} 查询进度
+--       每批书签写入时在同一事务中更新 processed_count 断点；节点重启后由存活节点按心跳超时接管，
+--       从断点继续导入而不是重新导入
+-- 注意: 上传文件暂存在 bookmark.import.job-dir，多节点部署时该目录需要共享
+CREATE TABLE IF NOT EXISTS import_job (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '任务ID',
+    user_id BIGINT NOT NULL COMMENT '用户ID',
+    import_type VARCHAR(16) NOT NULL COMMENT '导入类型: CHROME, EDGE, JSON',
+    file_path VARCHAR(512) NOT NULL COMMENT '上传文件暂存路径',
+    status TINYINT NOT NULL DEFAULT 0 COMMENT '0-排队 1-执行中 2-完成 3-失败 4-已取消',
+    processed_count INT NOT NULL DEFAULT 0 COMMENT '已提交的源书签条数（断点续传位置）',
+    success_count INT NOT NULL DEFAULT 0 COMMENT '成功导入数',
+    skipped_count INT NOT NULL DEFAULT 0 COMMENT '跳过数（重复或无效）',
+    failed_count INT NOT NULL DEFAULT 0 COMMENT '失败数',
+    categories_created INT NOT NULL DEFAULT 0 COMMENT '创建的分类数',
+    message VARCHAR(1000) COMMENT '结果或错误信息',
+    owner VARCHAR(128) COMMENT '执行节点',
+    heartbeat_time DATETIME COMMENT '执行节点心跳时间',
+    start_time DATETIME COMMENT '开始执行时间',
+    finish_time DATETIME COMMENT '结束时间',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    INDEX idx_user_status (user_id, status),
+    INDEX idx_status_heartbeat (status, heartbeat_time)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='书签导入任务';
@@ -0,0 +1,9 @@
+-- 搜索索引发件箱表
+-- 功能: 索引队列溢出、ES 持续不可用或应用关闭时，未写入 ES 的书签ID持久化到此表，
+--       由 SearchIndexQueue 定时取回重新入队，保证重启后索引事件不丢失
+CREATE TABLE IF NOT EXISTS search_index_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键',
+    bookmark_id BIGINT NOT NULL COMMENT '待同步的书签ID',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    INDEX idx_bookmark_id (bookmark_id)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='搜索索引发件箱';
@@ -0,0 +1,27 @@
+package com.bookmark.config;
+
+import com.bookmark.security.AuthenticatedPrincipalCache;
+import com.bookmark.service.UserCacheService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 消息订阅配置
+ * 用于多节点之间的缓存失效广播
+ */
+@Configuration
+public class RedisMessageConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            AuthenticatedPrincipalCache principalCache, UserCacheService userCacheService) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(principalCache, new ChannelTopic(AuthenticatedPrincipalCache.REVOCATION_CHANNEL));
+        container.addMessageListener(userCacheService, new ChannelTopic(UserCacheService.USER_CHANGED_CHANNEL));
+        return container;
+    }
+}
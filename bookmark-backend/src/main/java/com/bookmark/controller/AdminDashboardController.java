@@ -8,8 +8,12 @@ import com.bookmark.mapper.CategoryMapper;
 import com.bookmark.mapper.TagMapper;
 import com.bookmark.mapper.UserMapper;
 import com.bookmark.mapper.AdminLogMapper;
+import com.bookmark.service.ElasticsearchSyncTask;
+import com.bookmark.service.LinkCheckEngine;
+import com.bookmark.service.PresenceService;
+import com.bookmark.service.SearchEngineRouter;
+import com.bookmark.service.SearchIndexQueue;
 import com.bookmark.service.UserService;
-import com.bookmark.service.TokenService;
 import com.bookmark.util.Result;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -45,11 +49,23 @@ public class AdminDashboardController {
     private UserService userService;
 
     @Autowired
-    private TokenService tokenService;
+    private PresenceService presenceService;
 
     @Autowired
     private AdminLogMapper adminLogMapper;
 
+    @Autowired
+    private LinkCheckEngine linkCheckEngine;
+
+    @Autowired
+    private ElasticsearchSyncTask elasticsearchSyncTask;
+
+    @Autowired
+    private SearchIndexQueue searchIndexQueue;
+
+    @Autowired
+    private SearchEngineRouter searchEngineRouter;
+
     /**
      * 获取系统概览数据
      */
@@ -99,10 +115,14 @@ public class AdminDashboardController {
                 new LambdaQueryWrapper<User>().ge(User::getLastLoginTime, weekAgo));
         data.put("activeUsers", activeUsers);
 
-        // 当前在线用户数（拥有有效 Access Token 的用户）
-        long onlineUsers = tokenService.getOnlineUserCount();
+        // 当前在线用户数（在线窗口内有心跳的用户）
+        long onlineUsers = presenceService.getOnlineUserCount();
         data.put("onlineUsers", onlineUsers);
 
+        // 日活 / 周活（HyperLogLog 估算）
+        data.put("dailyActiveUsers", presenceService.getDailyActiveUsers());
+        data.put("weeklyActiveUsers", presenceService.getWeeklyActiveUsers());
+
         return Result.success(data);
     }
 
@@ -168,10 +188,52 @@ public class AdminDashboardController {
         data.put("status", "healthy");
         data.put("indexCount",
                 bookmarkMapper.selectCount(new LambdaQueryWrapper<Bookmark>().eq(Bookmark::getStatus, 1)));
+        data.put("indexQueue", searchIndexQueue.getStats());
+        data.put("searchEngine", searchEngineRouter.getStatus());
 
         return Result.success(data);
     }
 
+    /**
+     * 触发 Elasticsearch 全量重建（新建版本索引后切换别名，异步执行）
+     */
+    @PostMapping("/elasticsearch/reindex")
+    public Result<Void> reindexElasticsearch() {
+        User currentUser = userService.getCurrentUser();
+        if (currentUser == null || currentUser.getIsAdmin() != 1) {
+            return Result.error("无管理员权限");
+        }
+
+        elasticsearchSyncTask.fullSync();
+        return Result.success("全量重建已开始", null);
+    }
+
+    /**
+     * 获取 Elasticsearch 全量重建进度
+     */
+    @GetMapping("/elasticsearch/reindex")
+    public Result<ElasticsearchSyncTask.ReindexProgress> getReindexProgress() {
+        User currentUser = userService.getCurrentUser();
+        if (currentUser == null || currentUser.getIsAdmin() != 1) {
+            return Result.error("无管理员权限");
+        }
+
+        return Result.success(elasticsearchSyncTask.getReindexProgress());
+    }
+
+    /**
+     * 获取链接检测引擎指标（并发数、累计检测量、最近一次任务吞吐）
+     */
+    @GetMapping("/link-check")
+    public Result<Map<String, Object>> getLinkCheckMetrics() {
+        User currentUser = userService.getCurrentUser();
+        if (currentUser == null || currentUser.getIsAdmin() != 1) {
+            return Result.error("无管理员权限");
+        }
+
+        return Result.success(linkCheckEngine.getMetrics());
+    }
+
     /**
      * 获取最近活动（用于仪表盘）
      */
@@ -9,6 +9,7 @@ import com.bookmark.service.ActivationCodeService;
 import com.bookmark.service.AdminLogService;
 import com.bookmark.service.LoginHistoryService;
 import com.bookmark.service.TokenService;
+import com.bookmark.service.UserCacheService;
 import com.bookmark.service.UserService;
 import com.bookmark.util.Result;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -56,6 +57,9 @@ public class AdminUserController {
     @Autowired
     private LoginHistoryService loginHistoryService;
 
+    @Autowired
+    private UserCacheService userCacheService;
+
     /**
      * 获取用户列表
      */
@@ -183,6 +187,7 @@ public class AdminUserController {
         if (rows == 0) {
             return Result.error("更新失败");
         }
+        userCacheService.evict(id);
 
         // 记录日志
         String actionType = status == 1 ? "启用用户" : "禁用用户";
@@ -216,6 +221,7 @@ public class AdminUserController {
         user.setId(id);
         user.setIsAdmin(isAdmin);
         userMapper.updateById(user);
+        userCacheService.evict(id);
 
         // 记录日志
         String actionType = isAdmin == 1 ? "设置管理员" : "取消管理员";
@@ -7,6 +7,7 @@ import com.bookmark.dto.request.WxLoginRequest;
 import com.bookmark.dto.response.LoginResponse;
 import com.bookmark.entity.User;
 import com.bookmark.security.JwtTokenProvider;
+import com.bookmark.security.ParsedToken;
 import com.bookmark.service.AdminLogService;
 import com.bookmark.service.SystemConfigService;
 import com.bookmark.service.TokenService;
@@ -143,17 +144,18 @@ public class AuthController {
             }
 
             // 验证 Refresh Token 签名
-            if (!tokenProvider.validateToken(refreshToken)) {
+            ParsedToken parsedToken = tokenProvider.parseToken(refreshToken);
+            if (parsedToken == null) {
                 return Result.error("无效的 Refresh Token");
             }
 
             // 检查是否为 Refresh Token
-            if (!tokenProvider.isRefreshToken(refreshToken)) {
+            if (!parsedToken.isRefreshToken()) {
                 return Result.error("请使用 Refresh Token");
             }
 
-            Long userId = tokenProvider.getUserIdFromToken(refreshToken);
-            String oldTokenId = tokenProvider.getTokenIdFromToken(refreshToken);
+            Long userId = parsedToken.getUserId();
+            String oldTokenId = parsedToken.getTokenId();
 
             // 验证 Refresh Token 是否在 Redis 中
             if (!tokenService.validateRefreshToken(userId, oldTokenId)) {
@@ -188,15 +190,15 @@ public class AuthController {
             if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
                 String token = bearerToken.substring(7);
 
-                if (tokenProvider.validateToken(token)) {
-                    Long userId = tokenProvider.getUserIdFromToken(token);
-                    String tokenId = tokenProvider.getTokenIdFromToken(token);
-                    String tokenType = tokenProvider.getTokenTypeFromToken(token);
+                ParsedToken parsedToken = tokenProvider.parseToken(token);
+                if (parsedToken != null) {
+                    Long userId = parsedToken.getUserId();
+                    String tokenId = parsedToken.getTokenId();
 
                     if (tokenId != null && userId != null) {
-                        if ("access".equals(tokenType)) {
+                        if (parsedToken.isAccessToken()) {
                             tokenService.revokeAccessToken(userId, tokenId);
-                        } else if ("refresh".equals(tokenType)) {
+                        } else if (parsedToken.isRefreshToken()) {
                             tokenService.revokeRefreshToken(userId, tokenId);
                         }
                     }
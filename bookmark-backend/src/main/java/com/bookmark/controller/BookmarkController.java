@@ -1,15 +1,24 @@
 package com.bookmark.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.bookmark.dto.request.BatchBookmarkRequest;
 import com.bookmark.dto.request.BookmarkRequest;
+import com.bookmark.dto.response.BookmarkSummary;
+import com.bookmark.dto.response.DuplicateBookmarkGroup;
 import com.bookmark.dto.response.PageResponse;
 import com.bookmark.entity.Bookmark;
 import com.bookmark.service.BookmarkService;
+import com.bookmark.util.JsonStreamWriter;
 import com.bookmark.util.Result;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +30,9 @@ public class BookmarkController {
     @Autowired
     private BookmarkService bookmarkService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     public Result<PageResponse<Bookmark>> getBookmarkList(
             @RequestParam(defaultValue = "1") Integer page,
@@ -29,7 +41,15 @@ public class BookmarkController {
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String sortBy,
             @RequestParam(required = false) String sortOrder,
-            @RequestParam(required = false) Integer isFavorite) {
+            @RequestParam(required = false) Integer isFavorite,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") Boolean includeTotal) {
+
+        // 传入 cursor 参数（第一页为空字符串）时使用游标翻页
+        if (cursor != null) {
+            return Result.success(bookmarkService.getBookmarkListByCursor(cursor, size, categoryId, keyword,
+                    isFavorite, includeTotal));
+        }
 
         Page<Bookmark> pageResult = bookmarkService.getBookmarkList(page, size, categoryId, keyword, sortBy, sortOrder,
                 isFavorite);
@@ -37,6 +57,29 @@ public class BookmarkController {
         return Result.success(response);
     }
 
+    /**
+     * 获取书签列表（摘要视图，view=summary）
+     * 只查询列表需要的列，逐行流式写出 JSON
+     */
+    @GetMapping(params = "view=summary")
+    public void getBookmarkSummaries(
+            @RequestParam(defaultValue = "1") Integer page,
+            @RequestParam(defaultValue = "20") Integer size,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String sortOrder,
+            @RequestParam(required = false) Integer isFavorite,
+            HttpServletResponse response) throws IOException {
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonStreamWriter writer = new JsonStreamWriter(objectMapper, response.getOutputStream());
+        long total = bookmarkService.streamBookmarkSummaries(page, size, categoryId, keyword, sortBy, sortOrder,
+                isFavorite, writer::write);
+        writer.finishPage(total);
+    }
+
     @GetMapping("/{id}")
     public Result<Bookmark> getBookmarkById(@PathVariable Long id) {
         Bookmark bookmark = bookmarkService.getBookmarkById(id);
@@ -49,6 +92,12 @@ public class BookmarkController {
         return Result.success("书签创建成功", bookmark);
     }
 
+    @PostMapping("/batch")
+    public Result<List<Bookmark>> createBookmarks(@Valid @RequestBody BatchBookmarkRequest request) {
+        List<Bookmark> bookmarks = bookmarkService.createBookmarks(request.getBookmarks());
+        return Result.success("成功创建" + bookmarks.size() + "个书签", bookmarks);
+    }
+
     @PutMapping("/{id}")
     public Result<Void> updateBookmark(@PathVariable Long id, @RequestBody BookmarkRequest request) {
         bookmarkService.updateBookmark(id, request);
@@ -77,10 +126,9 @@ public class BookmarkController {
 
     @PutMapping("/{id}/visit")
     public Result<Map<String, Integer>> increaseVisitCount(@PathVariable Long id) {
-        bookmarkService.increaseVisitCount(id);
-        Bookmark bookmark = bookmarkService.getBookmarkById(id);
+        Integer visitCount = bookmarkService.increaseVisitCount(id);
         Map<String, Integer> result = new HashMap<>();
-        result.put("visitCount", bookmark.getVisitCount());
+        result.put("visitCount", visitCount);
         return Result.success(result);
     }
 
@@ -151,6 +199,14 @@ public class BookmarkController {
         return Result.success(pinnedBookmarks);
     }
 
+    /**
+     * 获取置顶书签列表（摘要视图）
+     */
+    @GetMapping(value = "/pinned", params = "view=summary")
+    public Result<List<BookmarkSummary>> getPinnedBookmarkSummaries() {
+        return Result.success(bookmarkService.getPinnedBookmarkSummaries());
+    }
+
     // ========== 高级搜索 API ==========
 
     /**
@@ -180,4 +236,21 @@ public class BookmarkController {
         List<Bookmark> deadLinks = bookmarkService.getDeadLinks();
         return Result.success(deadLinks);
     }
+
+    /**
+     * 获取失效链接列表（摘要视图）
+     */
+    @GetMapping(value = "/dead-links", params = "view=summary")
+    public Result<List<BookmarkSummary>> getDeadLinkSummaries() {
+        return Result.success(bookmarkService.getDeadLinkSummaries());
+    }
+
+    /**
+     * 重复书签报告（规范化 URL 相同的书签分组）
+     */
+    @GetMapping("/duplicates")
+    public Result<List<DuplicateBookmarkGroup>> getDuplicateBookmarks(
+            @RequestParam(required = false) Integer limit) {
+        return Result.success(bookmarkService.getDuplicateBookmarks(limit));
+    }
 }
@@ -2,15 +2,25 @@ package com.bookmark.controller;
 
 import com.bookmark.dto.request.ImportRequest;
 import com.bookmark.dto.response.ExportResponse;
-import com.bookmark.dto.response.ImportResponse;
+import com.bookmark.dto.response.ImportJobResponse;
 import com.bookmark.service.DataManagementService;
+import com.bookmark.service.ImportJobService;
+import com.bookmark.service.UserService;
+import com.bookmark.util.BookmarkExportWriter;
 import com.bookmark.util.Result;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 数据管理控制器
@@ -21,6 +31,8 @@ import java.nio.charset.StandardCharsets;
 public class DataManagementController {
 
     private final DataManagementService dataManagementService;
+    private final ImportJobService importJobService;
+    private final UserService userService;
 
     /**
      * 导出所有用户数据
@@ -32,31 +44,53 @@ public class DataManagementController {
     }
 
     /**
-     * 导入数据（通过 JSON body）
+     * 流式导出书签（format=ndjson|html|csv，gzip=true 时压缩为 .gz 文件）
+     * 边从数据库读取边写出，内存占用与书签数量无关；html 为浏览器可导入的 Netscape 书签文件
      */
-    @PostMapping("/import")
-    public Result<ImportResponse> importData(@RequestBody ImportRequest request) {
-        ImportResponse response = dataManagementService.importData(request);
-
-        if (response.getSuccessCount() > 0) {
-            String message = String.format("导入成功！新增 %d 个书签，创建 %d 个分类",
-                    response.getSuccessCount(), response.getCategoriesCreated());
-            if (response.getSkippedCount() > 0) {
-                message += String.format("，跳过 %d 个重复项", response.getSkippedCount());
+    @GetMapping(value = "/export", params = "format")
+    public ResponseEntity<StreamingResponseBody> exportBookmarks(
+            @RequestParam String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        BookmarkExportWriter.Format exportFormat = BookmarkExportWriter.Format.of(format);
+        // 写出在异步线程中执行，当前用户在请求线程中解析
+        Long userId = userService.getCurrentUser().getId();
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream gzipOut = new GZIPOutputStream(out, 8192);
+                dataManagementService.exportBookmarks(userId, exportFormat, gzipOut);
+                gzipOut.finish();
+            } else {
+                dataManagementService.exportBookmarks(userId, exportFormat, out);
             }
-            return Result.success(message, response);
-        } else if (!response.getMessages().isEmpty()) {
-            return Result.error(400, response.getMessages().get(0));
-        } else {
-            return Result.success("没有需要导入的新书签", response);
+        };
+
+        String filename = "bookmarks-" + LocalDate.now() + "." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(MediaType.parseMediaType(gzip ? "application/gzip"
+                        : exportFormat.getContentType() + ";charset=UTF-8"))
+                .body(body);
+    }
+
+    /**
+     * 提交导入任务（通过 JSON body），立即返回任务ID
+     */
+    @PostMapping("/import")
+    public Result<ImportJobResponse> importData(@RequestBody ImportRequest request) {
+        if (request.getContent() == null || request.getContent().isEmpty()) {
+            return Result.error(400, "导入内容不能为空");
         }
+        ImportJobResponse job = importJobService.submit(request.getImportType(), request.getContent());
+        return Result.success("导入任务已提交", job);
     }
 
     /**
-     * 通过文件上传导入数据
+     * 通过文件上传提交导入任务，立即返回任务ID
      */
     @PostMapping("/import/file")
-    public Result<ImportResponse> importFromFile(
+    public Result<ImportJobResponse> importFromFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("type") String importType) {
 
@@ -64,32 +98,31 @@ public class DataManagementController {
             return Result.error(400, "请选择要导入的文件");
         }
 
-        try {
-            String content = new String(file.getBytes(), StandardCharsets.UTF_8);
-
-            ImportRequest request = new ImportRequest();
-            request.setImportType(importType);
-            request.setContent(content);
-
-            ImportResponse response = dataManagementService.importData(request);
-
-            if (response.getSuccessCount() > 0) {
-                String message = String.format("导入成功！新增 %d 个书签，创建 %d 个分类",
-                        response.getSuccessCount(), response.getCategoriesCreated());
-                if (response.getSkippedCount() > 0) {
-                    message += String.format("，跳过 %d 个重复项", response.getSkippedCount());
-                }
-                return Result.success(message, response);
-            } else if (!response.getMessages().isEmpty()) {
-                return Result.error(400, response.getMessages().get(0));
-            } else {
-                return Result.success("没有需要导入的新书签", response);
-            }
+        try (InputStream inputStream = file.getInputStream()) {
+            ImportJobResponse job = importJobService.submit(importType, inputStream);
+            return Result.success("导入任务已提交", job);
         } catch (IOException e) {
             return Result.error(500, "文件读取失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 查询导入任务进度
+     */
+    @GetMapping("/import/{jobId}")
+    public Result<ImportJobResponse> getImportJob(@PathVariable Long jobId) {
+        return Result.success(importJobService.getJob(jobId));
+    }
+
+    /**
+     * 取消导入任务（已导入的书签保留）
+     */
+    @DeleteMapping("/import/{jobId}")
+    public Result<Void> cancelImportJob(@PathVariable Long jobId) {
+        importJobService.cancel(jobId);
+        return Result.success("导入任务已取消", null);
+    }
+
     /**
      * 清除所有用户数据（需要密码验证）
      */
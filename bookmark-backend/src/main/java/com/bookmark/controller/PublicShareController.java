@@ -1,5 +1,6 @@
 package com.bookmark.controller;
 
+import com.bookmark.dto.response.BookmarkSummary;
 import com.bookmark.service.SharedCategoryService;
 import com.bookmark.service.SharedBookmarksService;
 import com.bookmark.util.Result;
@@ -39,9 +40,10 @@ public class PublicShareController {
     @GetMapping("/{code}")
     public Result<Map<String, Object>> getShareContent(
             @PathVariable String code,
-            @RequestParam(required = false) String password) {
+            @RequestParam(required = false) String password,
+            @RequestParam(required = false) String view) {
         try {
-            Map<String, Object> content = sharedCategoryService.getShareContent(code, password);
+            Map<String, Object> content = sharedCategoryService.getShareContent(code, password, BookmarkSummary.isSummaryView(view));
             return Result.success(content);
         } catch (RuntimeException e) {
             return Result.error(400, e.getMessage());
@@ -69,9 +71,10 @@ public class PublicShareController {
     @GetMapping("/batch/{code}")
     public Result<Map<String, Object>> getBatchShareContent(
             @PathVariable String code,
-            @RequestParam(required = false) String password) {
+            @RequestParam(required = false) String password,
+            @RequestParam(required = false) String view) {
         try {
-            Map<String, Object> content = sharedBookmarksService.getShareContent(code, password);
+            Map<String, Object> content = sharedBookmarksService.getShareContent(code, password, BookmarkSummary.isSummaryView(view));
             return Result.success(content);
         } catch (RuntimeException e) {
             return Result.error(400, e.getMessage());
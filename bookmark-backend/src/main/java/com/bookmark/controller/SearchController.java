@@ -1,27 +1,40 @@
 package com.bookmark.controller;
 
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
 import com.bookmark.entity.BookmarkDocument;
 import com.bookmark.entity.User;
-import com.bookmark.service.SearchService;
+import com.bookmark.service.SearchEngine;
+import com.bookmark.service.SearchSuggestService;
 import com.bookmark.service.UserService;
 import com.bookmark.util.Result;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 搜索控制器
  */
+@Slf4j
 @RestController
 @RequestMapping("/search")
 @RequiredArgsConstructor
 @Tag(name = "搜索接口")
 public class SearchController {
 
-    private final SearchService searchService;
+    /**
+     * 旧版 GET 接口返回的最大条数
+     */
+    private static final int LIST_SEARCH_SIZE = 50;
+
+    private final SearchEngine searchEngine;
+    private final SearchSuggestService searchSuggestService;
     private final UserService userService;
 
     @GetMapping
@@ -31,8 +44,40 @@ public class SearchController {
             @RequestParam(required = false, defaultValue = "hybrid") String mode) {
         User currentUser = userService.getCurrentUser();
 
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return Result.success(new ArrayList<>());
+        }
+
+        SearchRequest request = new SearchRequest();
+        request.setKeyword(keyword);
+        request.setSize(LIST_SEARCH_SIZE);
         List<BookmarkDocument> results;
-        results = searchService.search(currentUser.getId(), keyword);
+        try {
+            results = searchEngine.search(currentUser.getId(), request).getItems().stream()
+                    .map(SearchResponse.Item::getBookmark)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("搜索失败: userId={}, keyword={}, error={}", currentUser.getId(), keyword, e.getMessage());
+            results = new ArrayList<>();
+        }
         return Result.success(results);
     }
+
+    @PostMapping
+    @Operation(summary = "分页搜索书签（游标翻页、高亮、过滤、分类/域名聚合）")
+    public Result<SearchResponse> searchPage(@RequestBody SearchRequest request) {
+        User currentUser = userService.getCurrentUser();
+        try {
+            return Result.success(searchEngine.search(currentUser.getId(), request));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "输入联想（标题前缀匹配）")
+    public Result<List<BookmarkDocument>> suggest(@RequestParam String prefix) {
+        User currentUser = userService.getCurrentUser();
+        return Result.success(searchSuggestService.suggest(currentUser.getId(), prefix));
+    }
 }
@@ -5,6 +5,7 @@ import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.User;
 import com.bookmark.mapper.BookmarkMapper;
 import com.bookmark.service.UserService;
+import com.bookmark.service.VisitCountService;
 import com.bookmark.util.Result;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,6 +29,7 @@ public class UserAnalyticsController {
 
     private final BookmarkMapper bookmarkMapper;
     private final UserService userService;
+    private final VisitCountService visitCountService;
 
     private static final Pattern DOMAIN_PATTERN = Pattern.compile("https?://([^/]+)");
 
@@ -162,6 +164,33 @@ public class UserAnalyticsController {
                         .orderByDesc("visit_count")
                         .last("LIMIT 10"));
 
+        // 合并尚未写回数据库的访问增量
+        Map<Long, Long> pendingCounts = visitCountService.getPendingCounts(currentUser.getId());
+        if (!pendingCounts.isEmpty()) {
+            Map<Long, Bookmark> candidates = new LinkedHashMap<>();
+            topBookmarks.forEach(b -> candidates.put(b.getId(), b));
+
+            List<Long> missingIds = pendingCounts.keySet().stream()
+                    .filter(id -> !candidates.containsKey(id))
+                    .collect(Collectors.toList());
+            if (!missingIds.isEmpty()) {
+                bookmarkMapper.selectBatchIds(missingIds).stream()
+                        .filter(b -> Integer.valueOf(1).equals(b.getStatus()))
+                        .forEach(b -> candidates.put(b.getId(), b));
+            }
+
+            for (Bookmark bookmark : candidates.values()) {
+                long pendingCount = pendingCounts.getOrDefault(bookmark.getId(), 0L);
+                int visitCount = bookmark.getVisitCount() != null ? bookmark.getVisitCount() : 0;
+                bookmark.setVisitCount((int) (visitCount + pendingCount));
+            }
+
+            topBookmarks = candidates.values().stream()
+                    .sorted(Comparator.comparing(Bookmark::getVisitCount).reversed())
+                    .limit(10)
+                    .collect(Collectors.toList());
+        }
+
         return Result.success(topBookmarks);
     }
 
@@ -0,0 +1,16 @@
+package com.bookmark.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchBookmarkRequest {
+    @Valid
+    @NotEmpty(message = "书签列表不能为空")
+    @Size(max = 500, message = "单次最多创建500个书签")
+    private List<BookmarkRequest> bookmarks;
+}
@@ -0,0 +1,43 @@
+package com.bookmark.dto.request;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 搜索请求 DTO
+ */
+@Data
+public class SearchRequest {
+    /**
+     * 搜索关键词（为空时按过滤条件列出书签）
+     */
+    private String keyword;
+
+    /**
+     * 分类过滤
+     */
+    private Long categoryId;
+
+    /**
+     * 收藏过滤: 1-只看收藏
+     */
+    private Integer isFavorite;
+
+    /**
+     * 创建日期范围（包含）
+     */
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    /**
+     * 每页条数，默认 20，最大 100
+     */
+    private Integer size;
+
+    /**
+     * 翻页游标，取上一页响应中的 nextCursor，第一页为空
+     */
+    private String cursor;
+}
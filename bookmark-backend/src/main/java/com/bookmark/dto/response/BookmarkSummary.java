@@ -0,0 +1,55 @@
+package com.bookmark.dto.response;
+
+import com.bookmark.entity.Bookmark;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 书签摘要（列表视图）
+ * 只包含列表展示需要的字段，查询时只读取 COLUMNS 中的列，不读取描述、标签、检测信息等宽字段
+ */
+@Data
+public class BookmarkSummary {
+
+    /**
+     * 摘要视图查询的列
+     */
+    public static final String[] COLUMNS = {
+            "id", "title", "url", "icon_url", "category_id", "is_favorite", "is_pinned",
+            "link_status", "visit_count", "create_time"
+    };
+
+    private Long id;
+    private String title;
+    private String url;
+    private String iconUrl;
+    private Long categoryId;
+    private Integer isFavorite;
+    private Integer isPinned;
+    private Integer linkStatus;
+    private Integer visitCount;
+    private LocalDateTime createTime;
+
+    public static BookmarkSummary fromBookmark(Bookmark bookmark) {
+        BookmarkSummary summary = new BookmarkSummary();
+        summary.setId(bookmark.getId());
+        summary.setTitle(bookmark.getTitle());
+        summary.setUrl(bookmark.getUrl());
+        summary.setIconUrl(bookmark.getIconUrl());
+        summary.setCategoryId(bookmark.getCategoryId());
+        summary.setIsFavorite(bookmark.getIsFavorite());
+        summary.setIsPinned(bookmark.getIsPinned());
+        summary.setLinkStatus(bookmark.getLinkStatus());
+        summary.setVisitCount(bookmark.getVisitCount());
+        summary.setCreateTime(bookmark.getCreateTime());
+        return summary;
+    }
+
+    /**
+     * 是否请求摘要视图（view=summary，不区分大小写）
+     */
+    public static boolean isSummaryView(String view) {
+        return "summary".equalsIgnoreCase(view);
+    }
+}
@@ -0,0 +1,26 @@
+package com.bookmark.dto.response;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 重复书签分组（规范化 URL 相同的一组书签）
+ */
+@Data
+public class DuplicateBookmarkGroup {
+    /**
+     * 规范化后的 URL（去掉协议、www. 前缀和结尾的 /）
+     */
+    private String normalizedUrl;
+
+    /**
+     * 组内书签数量
+     */
+    private int count;
+
+    /**
+     * 组内书签，按创建时间升序（第一个为最早添加的）
+     */
+    private List<BookmarkSummary> bookmarks;
+}
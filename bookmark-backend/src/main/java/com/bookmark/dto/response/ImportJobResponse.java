@@ -0,0 +1,70 @@
+package com.bookmark.dto.response;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 导入任务进度 DTO
+ */
+@Data
+public class ImportJobResponse {
+    /**
+     * 任务ID
+     */
+    private Long jobId;
+
+    /**
+     * 任务状态: PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+     */
+    private String status;
+
+    /**
+     * 导入类型: CHROME, EDGE, JSON
+     */
+    private String importType;
+
+    /**
+     * 已读取的源书签条数
+     */
+    private int parsedCount;
+
+    /**
+     * 成功导入的书签数量
+     */
+    private int successCount;
+
+    /**
+     * 跳过的书签数量（重复或无效）
+     */
+    private int skippedCount;
+
+    /**
+     * 失败的书签数量
+     */
+    private int failedCount;
+
+    /**
+     * 创建的分类数量
+     */
+    private int categoriesCreated;
+
+    /**
+     * 已执行时长（毫秒）
+     */
+    private long elapsedMs;
+
+    /**
+     * 导入速度（成功写入的书签数/秒）
+     */
+    private long rowsPerSecond;
+
+    /**
+     * 结果或错误信息
+     */
+    private String message;
+
+    private LocalDateTime createTime;
+
+    private LocalDateTime finishTime;
+}
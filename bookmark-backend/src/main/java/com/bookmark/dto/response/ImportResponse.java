@@ -29,6 +29,16 @@ public class ImportResponse {
      */
     private int categoriesCreated = 0;
 
+    /**
+     * 导入耗时（毫秒）
+     */
+    private long elapsedMs = 0;
+
+    /**
+     * 导入速度（成功写入的书签数/秒）
+     */
+    private long rowsPerSecond = 0;
+
     /**
      * 错误/警告信息列表
      */
@@ -42,6 +52,14 @@ public class ImportResponse {
         this.successCount++;
     }
 
+    public void addSuccess(int count) {
+        this.successCount += count;
+    }
+
+    public void addFailed(int count) {
+        this.failedCount += count;
+    }
+
     public void incrementSkipped() {
         this.skippedCount++;
     }
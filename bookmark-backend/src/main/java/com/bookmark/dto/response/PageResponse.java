@@ -7,9 +7,20 @@ import java.util.List;
 public class PageResponse<T> {
     private Long total;
     private List<T> list;
+
+    /**
+     * 游标翻页时下一页的游标，没有更多数据时为 null
+     */
+    private String nextCursor;
     
     public PageResponse(Long total, List<T> list) {
         this.total = total;
         this.list = list;
     }
+
+    public PageResponse(Long total, List<T> list, String nextCursor) {
+        this.total = total;
+        this.list = list;
+        this.nextCursor = nextCursor;
+    }
 }
@@ -0,0 +1,55 @@
+package com.bookmark.dto.response;
+
+import com.bookmark.entity.BookmarkDocument;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索响应 DTO
+ */
+@Data
+public class SearchResponse {
+    /**
+     * 命中总数
+     */
+    private long total;
+
+    /**
+     * 当前页结果
+     */
+    private List<Item> items = new ArrayList<>();
+
+    /**
+     * 下一页游标，没有更多结果时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 按分类统计的命中数（分类ID -> 数量）
+     */
+    private Map<Long, Long> categoryCounts = new LinkedHashMap<>();
+
+    /**
+     * 按域名统计的命中数（域名 -> 数量）
+     */
+    private Map<String, Long> domainCounts = new LinkedHashMap<>();
+
+    /**
+     * 单条搜索结果
+     */
+    @Data
+    public static class Item {
+        private BookmarkDocument bookmark;
+
+        /**
+         * 高亮片段（字段名 -> 片段列表），匹配词用 &lt;em&gt; 包裹
+         */
+        private Map<String, List<String>> highlights;
+
+        private Float score;
+    }
+}
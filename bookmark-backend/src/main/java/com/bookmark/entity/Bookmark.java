@@ -1,6 +1,7 @@
 package com.bookmark.entity;
 
 import com.baomidou.mybatisplus.annotation.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import java.time.LocalDateTime;
 
@@ -16,6 +17,9 @@ public class Bookmark {
 
     private String url;
 
+    @JsonIgnore
+    private String urlHash; // 规范化URL的MD5，用于去重（UrlHashUtils.hash）
+
     private String description;
 
     private String iconUrl;
@@ -5,25 +5,47 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.elasticsearch.annotations.Document;
 import org.springframework.data.elasticsearch.annotations.Field;
 import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.InnerField;
+import org.springframework.data.elasticsearch.annotations.MultiField;
+import org.springframework.data.elasticsearch.annotations.Setting;
 
+import java.net.URI;
 import java.time.LocalDateTime;
 
 @Data
 @Document(indexName = "bookmarks")
+@Setting(settingPath = "/elasticsearch/bookmark-settings.json")
 public class BookmarkDocument {
 
     @Id
+    @Field(type = FieldType.Long)
     private Long id;
 
     @Field(type = FieldType.Long)
     private Long userId;
 
-    @Field(type = FieldType.Text, analyzer = "ik_max_word", searchAnalyzer = "ik_smart")
+    /**
+     * title.suggest 子字段为 search_as_you_type，用于输入联想的前缀匹配
+     */
+    @MultiField(
+            mainField = @Field(type = FieldType.Text, analyzer = "ik_max_word", searchAnalyzer = "ik_smart"),
+            otherFields = @InnerField(suffix = "suggest", type = FieldType.Search_As_You_Type, analyzer = "standard"))
     private String title;
 
-    @Field(type = FieldType.Keyword)
+    /**
+     * url.ngram 子字段用于 URL 片段匹配，替代前导通配符查询
+     */
+    @MultiField(
+            mainField = @Field(type = FieldType.Keyword),
+            otherFields = @InnerField(suffix = "ngram", type = FieldType.Text, analyzer = "url_ngram"))
     private String url;
 
+    /**
+     * 域名（去掉 www.），用于按域名聚合
+     */
+    @Field(type = FieldType.Keyword)
+    private String domain;
+
     @Field(type = FieldType.Text, analyzer = "ik_max_word", searchAnalyzer = "ik_smart")
     private String description;
 
@@ -47,6 +69,7 @@ public class BookmarkDocument {
         doc.setUserId(bookmark.getUserId());
         doc.setTitle(bookmark.getTitle());
         doc.setUrl(bookmark.getUrl());
+        doc.setDomain(extractDomain(bookmark.getUrl()));
         doc.setDescription(bookmark.getDescription());
         doc.setTags(bookmark.getTags());
         doc.setCategoryId(bookmark.getCategoryId());
@@ -56,4 +79,24 @@ public class BookmarkDocument {
 
         return doc;
     }
+
+    private static String extractDomain(String url) {
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+        try {
+            String value = url.trim();
+            if (!value.contains("://")) {
+                value = "https://" + value;
+            }
+            String host = URI.create(value).getHost();
+            if (host == null) {
+                return null;
+            }
+            host = host.toLowerCase();
+            return host.startsWith("www.") ? host.substring(4) : host;
+        } catch (Exception e) {
+            return null;
+        }
+    }
 }
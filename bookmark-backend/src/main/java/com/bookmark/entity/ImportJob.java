@@ -0,0 +1,55 @@
+package com.bookmark.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 书签导入任务实体
+ */
+@Data
+@TableName("import_job")
+public class ImportJob {
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_RUNNING = 1;
+    public static final int STATUS_COMPLETED = 2;
+    public static final int STATUS_FAILED = 3;
+    public static final int STATUS_CANCELLED = 4;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long userId; // 用户ID
+
+    private String importType; // CHROME, EDGE, JSON
+
+    private String filePath; // 上传文件暂存路径
+
+    private Integer status; // 0-排队 1-执行中 2-完成 3-失败 4-已取消
+
+    private Integer processedCount; // 已提交的源书签条数（断点续传位置）
+
+    private Integer successCount; // 成功导入数
+
+    private Integer skippedCount; // 跳过数
+
+    private Integer failedCount; // 失败数
+
+    private Integer categoriesCreated; // 创建的分类数
+
+    private String message; // 结果或错误信息
+
+    private String owner; // 执行节点
+
+    private LocalDateTime heartbeatTime; // 执行节点心跳时间
+
+    private LocalDateTime startTime; // 开始执行时间
+
+    private LocalDateTime finishTime; // 结束时间
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+
+    @TableField(fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
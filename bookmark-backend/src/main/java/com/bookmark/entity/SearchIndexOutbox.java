@@ -0,0 +1,20 @@
+package com.bookmark.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 搜索索引发件箱实体
+ */
+@Data
+@TableName("search_index_outbox")
+public class SearchIndexOutbox {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long bookmarkId; // 待同步的书签ID
+
+    @TableField(fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
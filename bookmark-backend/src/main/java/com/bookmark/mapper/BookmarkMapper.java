@@ -2,17 +2,35 @@ package com.bookmark.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.bookmark.entity.Bookmark;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface BookmarkMapper extends BaseMapper<Bookmark> {
 
+    /**
+     * 全文搜索条件（走 ft_bookmark_text ngram 全文索引），query 为 BOOLEAN MODE 表达式
+     */
+    String FULLTEXT_CONDITIONS = "WHERE user_id = #{userId} AND status = 1 " +
+            "<if test='query != null'>AND MATCH(title, description, tags, url) AGAINST (#{query} IN BOOLEAN MODE) </if>" +
+            "<if test='categoryId != null'>AND category_id = #{categoryId} </if>" +
+            "<if test='isFavorite != null'>AND is_favorite = #{isFavorite} </if>" +
+            "<if test='startTime != null'>AND create_time &gt;= #{startTime} </if>" +
+            "<if test='endTime != null'>AND create_time &lt; #{endTime} </if>";
+
     /**
      * 查询回收站书签（绕过 @TableLogic）
      */
@@ -36,4 +54,151 @@ public interface BookmarkMapper extends BaseMapper<Bookmark> {
      */
     @Delete("DELETE FROM bookmark WHERE user_id = #{userId} AND status = 0")
     int clearTrashByUserId(@Param("userId") Long userId);
+
+    /**
+     * 按分类统计用户正常状态的书签数量（走 idx_user_status_category 索引）
+     * 返回列: category_id, cnt
+     */
+    @Select("SELECT category_id, COUNT(*) AS cnt FROM bookmark " +
+            "WHERE user_id = #{userId} AND status = 1 AND category_id IS NOT NULL " +
+            "GROUP BY category_id")
+    List<Map<String, Object>> countByCategory(@Param("userId") Long userId);
+
+    /**
+     * 批量按用户、分类统计正常状态的书签数量
+     * 返回列: user_id, category_id, cnt
+     */
+    @Select("<script>" +
+            "SELECT user_id, category_id, COUNT(*) AS cnt FROM bookmark " +
+            "WHERE status = 1 AND category_id IS NOT NULL AND user_id IN " +
+            "<foreach collection='userIds' item='uid' open='(' separator=',' close=')'>#{uid}</foreach> " +
+            "GROUP BY user_id, category_id" +
+            "</script>")
+    List<Map<String, Object>> countByUserAndCategory(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 批量累加访问次数（一条 UPDATE 完成整批，不修改 update_time）
+     * deltas: 书签ID -> 增量
+     */
+    @Update("<script>" +
+            "UPDATE bookmark SET update_time = update_time, visit_count = visit_count + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "ELSE 0 END WHERE id IN " +
+            "<foreach collection='deltas' index='id' item='delta' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementVisitCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 批量写回链接检测结果（一条 UPDATE 完成整批，不修改 update_time）
+     */
+    @Update("<script>" +
+            "UPDATE bookmark SET update_time = update_time, " +
+            "link_status = CASE id <foreach collection='list' item='b'>WHEN #{b.id} THEN #{b.linkStatus} </foreach>END, " +
+            "check_message = CASE id <foreach collection='list' item='b'>WHEN #{b.id} THEN #{b.checkMessage} </foreach>END, " +
+            "last_check_time = CASE id <foreach collection='list' item='b'>WHEN #{b.id} THEN #{b.lastCheckTime} </foreach>END " +
+            "WHERE id IN <foreach collection='list' item='b' open='(' separator=',' close=')'>#{b.id}</foreach>" +
+            "</script>")
+    int batchUpdateLinkStatus(@Param("list") Collection<Bookmark> bookmarks);
+
+    /**
+     * 按 (update_time, id) 游标读取变化的书签，包含已删除的（绕过 @TableLogic）
+     * 走 idx_update_time 索引范围扫描；游标条件展开为 OR，行构造器比较 (a, b) &gt; (x, y) 不会被优化为索引范围
+     */
+    @Select("SELECT * FROM bookmark " +
+            "WHERE update_time > #{updateTime} OR (update_time = #{updateTime} AND id > #{id}) " +
+            "ORDER BY update_time, id LIMIT #{limit}")
+    List<Bookmark> selectChangedSince(@Param("updateTime") LocalDateTime updateTime, @Param("id") Long id,
+            @Param("limit") int limit);
+
+    /**
+     * 流式读取所有正常状态的书签（MySQL 流式结果集，逐行回调，不整表加载到内存）
+     */
+    @Select("SELECT * FROM bookmark WHERE status = 1")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Bookmark.class)
+    void streamActive(ResultHandler<Bookmark> handler);
+
+    /**
+     * 多行 INSERT 批量写入书签，自增ID回填到实体
+     * 不经过 MetaObjectHandler，create_time / update_time 需由调用方设置
+     */
+    @Insert("<script>" +
+            "INSERT INTO bookmark (user_id, title, url, url_hash, description, icon_url, category_id, tags, is_favorite, " +
+            "visit_count, sort_order, is_pinned, status, create_time, update_time) VALUES " +
+            "<foreach collection='list' item='b' separator=','>" +
+            "(#{b.userId}, #{b.title}, #{b.url}, #{b.urlHash}, #{b.description}, #{b.iconUrl}, #{b.categoryId}, #{b.tags}, " +
+            "#{b.isFavorite}, #{b.visitCount}, #{b.sortOrder}, #{b.isPinned}, #{b.status}, " +
+            "#{b.createTime}, #{b.updateTime})" +
+            "</foreach>" +
+            "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "id", keyColumn = "id")
+    int insertBatch(@Param("list") List<Bookmark> bookmarks);
+
+    /**
+     * 查询用户正常书签中已存在的 URL 哈希（走 idx_user_url_hash 索引，只读索引不回表）
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT url_hash FROM bookmark WHERE user_id = #{userId} AND status = 1 AND url_hash IN " +
+            "<foreach collection='urlHashes' item='h' open='(' separator=',' close=')'>#{h}</foreach>" +
+            "</script>")
+    List<String> selectExistingUrlHashes(@Param("userId") Long userId, @Param("urlHashes") Collection<String> urlHashes);
+
+    /**
+     * 统计用户正常书签中重复的 URL 哈希，按重复数倒序（走 idx_user_url_hash 索引分组）
+     * 返回列: url_hash, cnt
+     */
+    @Select("SELECT url_hash, COUNT(*) AS cnt FROM bookmark " +
+            "WHERE user_id = #{userId} AND status = 1 AND url_hash IS NOT NULL " +
+            "GROUP BY url_hash HAVING COUNT(*) > 1 ORDER BY cnt DESC LIMIT #{limit}")
+    List<Map<String, Object>> selectDuplicateUrlHashes(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * 按分类顺序流式读取用户的正常书签（导出用，MySQL 流式结果集逐行回调）
+     * 走 idx_user_status_category 索引
+     */
+    @Select("SELECT * FROM bookmark WHERE user_id = #{userId} AND status = 1 ORDER BY category_id, id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Bookmark.class)
+    void streamByUser(@Param("userId") Long userId, ResultHandler<Bookmark> handler);
+
+    /**
+     * 按ID批量查询书签，包含已删除的（绕过 @TableLogic）
+     */
+    @Select("<script>" +
+            "SELECT * FROM bookmark WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    List<Bookmark> selectByIdsIncludingDeleted(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 全文搜索书签：有关键词按相关度排序，否则按创建时间
+     */
+    @Select("<script>" +
+            "SELECT * FROM bookmark " + FULLTEXT_CONDITIONS +
+            "ORDER BY <if test='query != null'>MATCH(title, description, tags, url) AGAINST (#{query} IN BOOLEAN MODE) DESC, </if>" +
+            "<if test='query == null'>create_time DESC, </if>id DESC " +
+            "LIMIT #{offset}, #{limit}" +
+            "</script>")
+    List<Bookmark> searchFulltext(@Param("userId") Long userId, @Param("query") String query,
+            @Param("categoryId") Long categoryId, @Param("isFavorite") Integer isFavorite,
+            @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime,
+            @Param("offset") int offset, @Param("limit") int limit);
+
+    /**
+     * 全文搜索命中总数
+     */
+    @Select("<script>SELECT COUNT(*) FROM bookmark " + FULLTEXT_CONDITIONS + "</script>")
+    long countFulltext(@Param("userId") Long userId, @Param("query") String query,
+            @Param("categoryId") Long categoryId, @Param("isFavorite") Integer isFavorite,
+            @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
+
+    /**
+     * 全文搜索命中数按分类统计
+     * 返回列: category_id, cnt
+     */
+    @Select("<script>SELECT category_id, COUNT(*) AS cnt FROM bookmark " + FULLTEXT_CONDITIONS +
+            "GROUP BY category_id</script>")
+    List<Map<String, Object>> countFulltextByCategory(@Param("userId") Long userId, @Param("query") String query,
+            @Param("categoryId") Long categoryId, @Param("isFavorite") Integer isFavorite,
+            @Param("startTime") LocalDateTime startTime, @Param("endTime") LocalDateTime endTime);
 }
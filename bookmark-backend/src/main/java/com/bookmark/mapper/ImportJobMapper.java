@@ -0,0 +1,91 @@
+package com.bookmark.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.bookmark.entity.ImportJob;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 书签导入任务 Mapper
+ */
+@Mapper
+public interface ImportJobMapper extends BaseMapper<ImportJob> {
+
+    /**
+     * 认领任务：排队或执行中、且属于本节点或心跳已超时的任务才能认领
+     * 时间统一使用数据库时钟
+     *
+     * @return 1 表示认领成功
+     */
+    @Update("UPDATE import_job SET owner = #{owner}, status = 1, heartbeat_time = NOW(), " +
+            "start_time = IFNULL(start_time, NOW()) " +
+            "WHERE id = #{id} AND status IN (0, 1) " +
+            "AND (owner = #{owner} OR heartbeat_time IS NULL " +
+            "OR heartbeat_time < NOW() - INTERVAL #{leaseSeconds} SECOND)")
+    int claim(@Param("id") Long id, @Param("owner") String owner, @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * 保存断点和进度；任务已取消或被其他节点接管时不更新（返回 0）
+     */
+    @Update("UPDATE import_job SET processed_count = #{job.processedCount}, success_count = #{job.successCount}, " +
+            "skipped_count = #{job.skippedCount}, failed_count = #{job.failedCount}, " +
+            "categories_created = #{job.categoriesCreated}, heartbeat_time = NOW() " +
+            "WHERE id = #{job.id} AND owner = #{owner} AND status = 1")
+    int saveProgress(@Param("job") ImportJob job, @Param("owner") String owner);
+
+    /**
+     * 结束任务，写入最终状态和统计
+     */
+    @Update("UPDATE import_job SET status = #{job.status}, processed_count = #{job.processedCount}, " +
+            "success_count = #{job.successCount}, skipped_count = #{job.skippedCount}, " +
+            "failed_count = #{job.failedCount}, categories_created = #{job.categoriesCreated}, " +
+            "message = #{job.message}, finish_time = NOW() " +
+            "WHERE id = #{job.id} AND owner = #{owner} AND status IN (1, 4)")
+    int finish(@Param("job") ImportJob job, @Param("owner") String owner);
+
+    /**
+     * 释放本节点认领的任务（恢复为排队、清空执行节点和心跳），由持有暂存文件的节点重新认领
+     */
+    @Update("UPDATE import_job SET owner = NULL, status = 0, heartbeat_time = NULL " +
+            "WHERE id = #{id} AND owner = #{owner} AND status = 1")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    /**
+     * 将创建时间早于 before、且心跳超时的未完成任务标记为失败（暂存文件在所有节点上都已丢失）
+     */
+    @Update("UPDATE import_job SET status = 3, message = #{message}, finish_time = NOW() " +
+            "WHERE status IN (0, 1) AND create_time < #{before} " +
+            "AND (heartbeat_time IS NULL OR heartbeat_time < NOW() - INTERVAL #{leaseSeconds} SECOND)")
+    int failAbandoned(@Param("before") LocalDateTime before, @Param("leaseSeconds") int leaseSeconds,
+                      @Param("message") String message);
+
+    /**
+     * 取消排队或执行中的任务
+     */
+    @Update("UPDATE import_job SET status = 4, message = '导入已取消', finish_time = NOW() " +
+            "WHERE id = #{id} AND user_id = #{userId} AND status IN (0, 1)")
+    int cancel(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * 刷新本节点任务的心跳
+     */
+    @Update("<script>" +
+            "UPDATE import_job SET heartbeat_time = NOW() WHERE owner = #{owner} AND status IN (0, 1) AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int heartbeat(@Param("owner") String owner, @Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询心跳超时的未完成任务（执行节点已停止）
+     */
+    @Select("SELECT * FROM import_job WHERE status IN (0, 1) " +
+            "AND (heartbeat_time IS NULL OR heartbeat_time < NOW() - INTERVAL #{leaseSeconds} SECOND) " +
+            "ORDER BY id LIMIT #{limit}")
+    List<ImportJob> selectStale(@Param("leaseSeconds") int leaseSeconds, @Param("limit") int limit);
+}
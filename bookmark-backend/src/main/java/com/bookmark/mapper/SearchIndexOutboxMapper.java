@@ -0,0 +1,25 @@
+package com.bookmark.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.bookmark.entity.SearchIndexOutbox;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+
+/**
+ * 搜索索引发件箱 Mapper
+ */
+@Mapper
+public interface SearchIndexOutboxMapper extends BaseMapper<SearchIndexOutbox> {
+
+    /**
+     * 批量写入待同步的书签ID
+     */
+    @Insert("<script>" +
+            "INSERT INTO search_index_outbox (bookmark_id) VALUES " +
+            "<foreach collection='bookmarkIds' item='id' separator=','>(#{id})</foreach>" +
+            "</script>")
+    int insertBatch(@Param("bookmarkIds") Collection<Long> bookmarkIds);
+}
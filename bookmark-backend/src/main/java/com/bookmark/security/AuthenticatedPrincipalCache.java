@@ -0,0 +1,162 @@
+package com.bookmark.security;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 已验证身份的本地缓存
+ * 以 tokenId 为 key，命中时跳过 Redis 校验和用户查询；
+ * 通过 Redis 频道接收注销广播，保证多节点下注销立即生效；
+ * 校验期间收到的注销用代数计数器识别，写入缓存后发现代数变化则撤销本次写入
+ */
+@Slf4j
+@Component
+public class AuthenticatedPrincipalCache implements MessageListener {
+
+    /**
+     * 注销广播频道
+     * 消息格式: token:{tokenId} 或 user:{userId}
+     */
+    public static final String REVOCATION_CHANNEL = "token:revoked";
+
+    public static final String TOKEN_MESSAGE_PREFIX = "token:";
+    public static final String USER_MESSAGE_PREFIX = "user:";
+
+    @Value("${bookmark.auth.principal-cache.capacity:10000}")
+    private int capacity;
+
+    @Value("${bookmark.auth.principal-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    private LRUCache<String, CachedPrincipal> cache;
+
+    /**
+     * 用户ID -> 已缓存的 tokenId，按用户注销时不需要遍历缓存
+     * 缓存项被淘汰、过期或移除时通过缓存监听器同步清理
+     */
+    private final Map<Long, Set<String>> userTokens = new ConcurrentHashMap<>();
+
+    /**
+     * 注销代数，每次按 Token 或按用户移除缓存时递增
+     */
+    private final AtomicLong revocationGeneration = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.cache = CacheUtil.newLRUCache(capacity, ttlSeconds * 1000);
+        this.cache.setListener((tokenId, principal) -> unindex(principal.getUserId(), tokenId));
+    }
+
+    /**
+     * 获取缓存的身份信息（不延长有效期）
+     */
+    public CachedPrincipal get(String tokenId) {
+        return cache.get(tokenId, false);
+    }
+
+    /**
+     * 当前注销代数，在向 Redis 校验 Token 之前读取，写入缓存时传给 put
+     */
+    public long currentGeneration() {
+        return revocationGeneration.get();
+    }
+
+    /**
+     * 缓存校验通过的身份信息
+     * 校验开始后收到过注销广播（代数已变化）时撤销本次写入，下次请求重新向 Redis 校验，
+     * 避免在校验与写入之间被注销的 Token 在 TTL 内继续命中缓存
+     *
+     * @param generation 校验前读取的 {@link #currentGeneration()}
+     */
+    public void put(String tokenId, CachedPrincipal principal, long generation) {
+        userTokens.computeIfAbsent(principal.getUserId(), k -> ConcurrentHashMap.newKeySet()).add(tokenId);
+        cache.put(tokenId, principal);
+        if (revocationGeneration.get() != generation) {
+            cache.remove(tokenId);
+        }
+    }
+
+    /**
+     * 移除指定 Token 的缓存
+     */
+    public void evictToken(String tokenId) {
+        revocationGeneration.incrementAndGet();
+        cache.remove(tokenId);
+    }
+
+    /**
+     * 移除指定用户所有 Token 的缓存
+     */
+    public void evictUser(Long userId) {
+        revocationGeneration.incrementAndGet();
+        Set<String> tokenIds = userTokens.remove(userId);
+        if (tokenIds == null) {
+            return;
+        }
+        try {
+            tokenIds.forEach(cache::remove);
+        } catch (Exception e) {
+            // 不能让已注销的用户继续通过缓存认证，移除失败时清空整个缓存
+            log.warn("按用户移除身份缓存失败，清空缓存: userId={}, error={}", userId, e.getMessage());
+            clear();
+        }
+    }
+
+    private void clear() {
+        revocationGeneration.incrementAndGet();
+        cache.clear();
+        userTokens.clear();
+    }
+
+    private void unindex(Long userId, String tokenId) {
+        userTokens.computeIfPresent(userId, (k, tokenIds) -> {
+            tokenIds.remove(tokenId);
+            return tokenIds.isEmpty() ? null : tokenIds;
+        });
+    }
+
+    /**
+     * 接收注销广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            if (body.startsWith(TOKEN_MESSAGE_PREFIX)) {
+                evictToken(body.substring(TOKEN_MESSAGE_PREFIX.length()));
+            } else if (body.startsWith(USER_MESSAGE_PREFIX)) {
+                evictUser(Long.parseLong(body.substring(USER_MESSAGE_PREFIX.length())));
+            }
+            log.debug("收到 Token 注销广播: {}", body);
+        } catch (Exception e) {
+            log.warn("处理 Token 注销广播失败，清空缓存: message={}, error={}", body, e.getMessage());
+            clear();
+        }
+    }
+
+    /**
+     * 缓存的身份信息
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CachedPrincipal {
+        private final Long userId;
+        private final String tokenType;
+        private final UserDetails userDetails;
+    }
+}
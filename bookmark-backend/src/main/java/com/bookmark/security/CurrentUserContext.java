@@ -0,0 +1,33 @@
+package com.bookmark.security;
+
+import com.bookmark.entity.User;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 当前请求的用户上下文
+ * 由认证过滤器或首次 getCurrentUser 填充，同一请求内后续调用直接复用，不再查库；
+ * 非 Web 线程（定时任务、@Async）中没有请求上下文，get 返回 null
+ */
+public final class CurrentUserContext {
+
+    private static final String ATTRIBUTE_NAME = CurrentUserContext.class.getName() + ".user";
+
+    private CurrentUserContext() {
+    }
+
+    public static User get() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        return (User) attributes.getAttribute(ATTRIBUTE_NAME, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    public static void set(User user) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null && user != null) {
+            attributes.setAttribute(ATTRIBUTE_NAME, user, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package com.bookmark.security;
 
 import com.bookmark.entity.User;
-import com.bookmark.mapper.UserMapper;
+import com.bookmark.service.PresenceService;
 import com.bookmark.service.TokenService;
+import com.bookmark.service.UserCacheService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -22,6 +23,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Component
@@ -37,7 +39,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private TokenService tokenService;
 
     @Autowired
-    private UserMapper userMapper;
+    private UserCacheService userCacheService;
+
+    @Autowired
+    private AuthenticatedPrincipalCache principalCache;
+
+    @Autowired
+    private PresenceService presenceService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -48,21 +56,19 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             log.debug("Processing request: {}", request.getRequestURI());
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromToken(jwt);
-                String tokenId = tokenProvider.getTokenIdFromToken(jwt);
-                String tokenType = tokenProvider.getTokenTypeFromToken(jwt);
+            ParsedToken parsedToken = StringUtils.hasText(jwt) ? tokenProvider.parseToken(jwt) : null;
+            if (parsedToken != null) {
+                Long userId = parsedToken.getUserId();
+                String tokenId = parsedToken.getTokenId();
+                String tokenType = parsedToken.getTokenType();
 
                 // 处理旧版 Token（没有 tokenId 的 Token）
                 if (tokenId == null) {
                     // 兼容旧版本：直接使用用户名获取用户
-                    String username = tokenProvider.getUsernameFromToken(jwt);
+                    String username = parsedToken.getSubject();
                     if (username != null) {
                         UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                                userDetails, null, userDetails.getAuthorities());
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        setAuthentication(request, userDetails);
                     }
                     filterChain.doFilter(request, response);
                     return;
@@ -70,58 +76,64 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
                 // 只允许 Access Token 访问 API（除了刷新接口）
                 boolean isRefreshEndpoint = request.getRequestURI().contains("/auth/refresh");
-                if ("refresh".equals(tokenType) && !isRefreshEndpoint) {
+                if (parsedToken.isRefreshToken() && !isRefreshEndpoint) {
                     log.warn("尝试使用 Refresh Token 访问 API: userId={}", userId);
                     sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
                             "INVALID_TOKEN", "请使用 Access Token");
                     return;
                 }
 
-                // 验证 Token 是否在 Redis 中存在
-                boolean tokenValid;
-                if ("access".equals(tokenType)) {
-                    tokenValid = tokenService.validateAccessToken(userId, tokenId);
-                } else {
-                    tokenValid = tokenService.validateRefreshToken(userId, tokenId);
-                }
+                // 本地缓存命中：签名已校验，跳过 Redis 和数据库
+                AuthenticatedPrincipalCache.CachedPrincipal principal = principalCache.get(tokenId);
+                if (principal == null || !Objects.equals(principal.getUserId(), userId)
+                        || !Objects.equals(principal.getTokenType(), tokenType)) {
+                    // 校验前记录注销代数，校验期间收到的注销广播会使本次缓存写入失效
+                    long generation = principalCache.currentGeneration();
+
+                    // 验证 Token 是否在 Redis 中存在（Access Token 同时完成滑动续期）
+                    boolean tokenValid;
+                    if (parsedToken.isAccessToken()) {
+                        tokenValid = tokenService.validateAndTouchAccessToken(userId, tokenId);
+                    } else {
+                        tokenValid = tokenService.validateRefreshToken(userId, tokenId);
+                    }
 
-                if (!tokenValid) {
-                    log.warn("Token 已被注销或过期: userId={}, tokenId={}", userId, tokenId);
-                    sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
-                            "TOKEN_REVOKED", "Token 已失效，请重新登录");
-                    return;
-                }
+                    if (!tokenValid) {
+                        log.warn("Token 已被注销或过期: userId={}, tokenId={}", userId, tokenId);
+                        sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
+                                "TOKEN_REVOKED", "Token 已失效，请重新登录");
+                        return;
+                    }
 
-                // 检查用户状态
-                User user = userMapper.selectById(userId);
-                if (user == null) {
-                    log.warn("用户不存在: userId={}", userId);
-                    sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
-                            "USER_NOT_FOUND", "用户不存在");
-                    return;
-                }
+                    // 检查用户状态
+                    User user = userCacheService.getUser(userId);
+                    if (user == null) {
+                        log.warn("用户不存在: userId={}", userId);
+                        sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
+                                "USER_NOT_FOUND", "用户不存在");
+                        return;
+                    }
 
-                if (user.getStatus() != null && user.getStatus() == 0) {
-                    log.warn("用户已被禁用: userId={}", userId);
-                    // 注销该用户所有 Token
-                    tokenService.revokeAllUserTokens(userId);
-                    sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
-                            "USER_DISABLED", "账户已被禁用，请联系管理员");
-                    return;
-                }
+                    if (user.getStatus() != null && user.getStatus() == 0) {
+                        log.warn("用户已被禁用: userId={}", userId);
+                        // 注销该用户所有 Token
+                        tokenService.revokeAllUserTokens(userId);
+                        sendErrorResponse(response, HttpServletResponse.SC_UNAUTHORIZED,
+                                "USER_DISABLED", "账户已被禁用，请联系管理员");
+                        return;
+                    }
 
-                // 检查是否需要刷新 Token（滑动过期）
-                if ("access".equals(tokenType) && tokenService.shouldRefreshAccessToken(userId, tokenId)) {
-                    tokenService.refreshAccessToken(userId, tokenId);
-                    log.debug("自动刷新 Access Token: userId={}", userId);
+                    principal = new AuthenticatedPrincipalCache.CachedPrincipal(
+                            userId, tokenType, userDetailsService.buildUserDetails(user));
+                    principalCache.put(tokenId, principal, generation);
+                    CurrentUserContext.set(user);
                 }
 
                 // 设置认证信息
-                UserDetails userDetails = userDetailsService.loadUserByUsername(String.valueOf(userId));
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                setAuthentication(request, principal.getUserDetails());
+
+                // 记录在线心跳（本地节流）
+                presenceService.heartbeat(userId);
 
                 log.debug("Authentication set successfully for userId: {}", userId);
             }
@@ -132,6 +144,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private void setAuthentication(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
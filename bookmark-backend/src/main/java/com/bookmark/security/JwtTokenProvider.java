@@ -89,16 +89,48 @@ public class JwtTokenProvider {
                 .compact();
     }
 
+    /**
+     * 解析 Token（只校验一次签名）
+     *
+     * @return 解析结果，签名无效或已过期时返回 null
+     */
+    public ParsedToken parseToken(String token) {
+        Claims claims;
+        try {
+            claims = parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token 验证失败: {}", e.getMessage());
+            return null;
+        }
+
+        String subject = claims.getSubject();
+        Long userId = null;
+        try {
+            userId = subject != null ? Long.parseLong(subject) : null;
+        } catch (NumberFormatException e) {
+            // 旧版 Token 的 subject 为邮箱
+        }
+
+        return new ParsedToken(claims, subject,
+                claims.get("tokenId", String.class),
+                claims.get("type", String.class),
+                userId);
+    }
+
+    private Claims parseClaims(String token) {
+        return Jwts.parser()
+                .verifyWith(key)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
     /**
      * 从 Token 获取用户 ID
      */
     public Long getUserIdFromToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parseClaims(token);
 
             return Long.parseLong(claims.getSubject());
         } catch (NumberFormatException e) {
@@ -112,11 +144,7 @@ public class JwtTokenProvider {
      */
     public String getTokenIdFromToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parseClaims(token);
 
             return claims.get("tokenId", String.class);
         } catch (Exception e) {
@@ -130,11 +158,7 @@ public class JwtTokenProvider {
      */
     public String getTokenTypeFromToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parseClaims(token);
 
             return claims.get("type", String.class);
         } catch (Exception e) {
@@ -148,11 +172,7 @@ public class JwtTokenProvider {
      */
     public String getUsernameFromToken(String token) {
         try {
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Claims claims = parseClaims(token);
 
             return claims.getSubject();
         } catch (Exception e) {
@@ -166,10 +186,7 @@ public class JwtTokenProvider {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
+            parseClaims(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             log.debug("Token 验证失败: {}", e.getMessage());
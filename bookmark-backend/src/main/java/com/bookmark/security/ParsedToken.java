@@ -0,0 +1,41 @@
+package com.bookmark.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 一次解析得到的 JWT 信息
+ * 签名只校验一次，后续读取 tokenId / type / userId 不再重复解析
+ */
+@Getter
+@AllArgsConstructor
+public class ParsedToken {
+
+    private final Claims claims;
+
+    private final String subject;
+
+    /**
+     * Token ID（旧版 Token 为 null）
+     */
+    private final String tokenId;
+
+    /**
+     * Token 类型: access / refresh（旧版 Token 为 null）
+     */
+    private final String tokenType;
+
+    /**
+     * 用户 ID（subject 不是数字时为 null，例如旧版邮箱 Token）
+     */
+    private final Long userId;
+
+    public boolean isAccessToken() {
+        return "access".equals(tokenType);
+    }
+
+    public boolean isRefreshToken() {
+        return "refresh".equals(tokenType);
+    }
+}
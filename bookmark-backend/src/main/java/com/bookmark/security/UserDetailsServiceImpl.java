@@ -38,6 +38,13 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             throw new UsernameNotFoundException("User not found: " + identifier);
         }
 
+        return buildUserDetails(user);
+    }
+
+    /**
+     * 由已加载的用户构建 UserDetails（避免重复查询）
+     */
+    public UserDetails buildUserDetails(User user) {
         // 检查用户是否被禁用 (status: 1=启用, 0=禁用)
         boolean enabled = user.getStatus() == null || user.getStatus() == 1;
 
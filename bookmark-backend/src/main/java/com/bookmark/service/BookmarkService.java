@@ -2,13 +2,22 @@ package com.bookmark.service;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.bookmark.dto.request.BookmarkRequest;
+import com.bookmark.dto.response.BookmarkSummary;
+import com.bookmark.dto.response.DuplicateBookmarkGroup;
+import com.bookmark.dto.response.PageResponse;
 import com.bookmark.entity.Bookmark;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookmarkService {
         Bookmark createBookmark(BookmarkRequest request);
 
+        /**
+         * 批量创建书签：数量限制检查一次、元数据并发抓取、多行 INSERT、索引和分类数量各更新一次
+         */
+        List<Bookmark> createBookmarks(List<BookmarkRequest> requests);
+
         Bookmark updateBookmark(Long id, BookmarkRequest request);
 
         void deleteBookmark(Long id);
@@ -20,9 +29,27 @@ public interface BookmarkService {
         Page<Bookmark> getBookmarkList(Integer page, Integer size, Long categoryId, String keyword, String sortBy,
                         String sortOrder, Integer isFavorite);
 
+        /**
+         * 游标翻页获取书签列表（置顶优先、创建时间倒序），深翻页与第一页开销相同
+         *
+         * @param cursor       上一页返回的游标，第一页传空字符串
+         * @param includeTotal 是否返回总数（短时间缓存）
+         */
+        PageResponse<Bookmark> getBookmarkListByCursor(String cursor, Integer size, Long categoryId, String keyword,
+                        Integer isFavorite, boolean includeTotal);
+
+        /**
+         * 以摘要视图流式读取一页书签（只查询摘要列，逐行回调），返回总数
+         */
+        long streamBookmarkSummaries(Integer page, Integer size, Long categoryId, String keyword, String sortBy,
+                        String sortOrder, Integer isFavorite, Consumer<BookmarkSummary> consumer);
+
         void updateFavorite(Long id, Integer isFavorite);
 
-        void increaseVisitCount(Long id);
+        /**
+         * 记录一次访问，返回最新访问次数（含未写回的增量）
+         */
+        Integer increaseVisitCount(Long id);
 
         // 回收站相关方法
         List<Bookmark> getTrashBookmarks();
@@ -38,9 +65,18 @@ public interface BookmarkService {
 
         List<Bookmark> getPinnedBookmarks();
 
+        List<BookmarkSummary> getPinnedBookmarkSummaries();
+
         // 高级搜索相关方法
         Page<Bookmark> advancedSearch(String keyword, String domain, Long categoryId,
                         String startDate, String endDate, Integer linkStatus, Integer page, Integer size);
 
         List<Bookmark> getDeadLinks();
+
+        List<BookmarkSummary> getDeadLinkSummaries();
+
+        /**
+         * 重复书签报告：按 URL 哈希分组，返回书签数大于 1 的组（按重复数倒序）
+         */
+        List<DuplicateBookmarkGroup> getDuplicateBookmarks(Integer limit);
 }
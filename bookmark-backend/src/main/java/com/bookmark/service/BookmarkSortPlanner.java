@@ -0,0 +1,123 @@
+package com.bookmark.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.entity.Bookmark;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 书签列表排序计划
+ * - 只允许白名单中的排序字段和方向，其余直接拒绝，不把客户端参数拼进 ORDER BY
+ * - 每种排序都有对应的 (user_id, status, is_pinned, 排序列, id) 复合索引，
+ *   置顶优先 + 排序列 + id 的顺序与索引一致，列表查询为索引范围扫描，不需要 filesort
+ * - 按分类筛选时使用 (user_id, status, category_id, is_pinned, 排序列, id) 复合索引
+ * - 有关键词时由全文索引过滤，结果集较小，排序在内存中完成
+ */
+@Slf4j
+@Service
+public class BookmarkSortPlanner {
+
+    private static final Map<String, SortPlan> PLANS = new LinkedHashMap<>();
+
+    static {
+        register("create_time", false, "idx_user_status_pinned_time", "idx_user_status_category_pinned_time");
+        register("create_time", true, "idx_user_status_pinned_time_asc", "idx_user_status_category_pinned_time_asc");
+        register("update_time", false, "idx_user_status_pinned_update", "idx_user_status_category_pinned_update");
+        register("visit_count", false, "idx_user_status_pinned_visit", "idx_user_status_category_pinned_visit");
+        register("title", true, "idx_user_status_pinned_title_asc", "idx_user_status_category_pinned_title_asc");
+    }
+
+    private static final SortPlan DEFAULT_PLAN = PLANS.get("create_time:desc");
+
+    private static void register(String column, boolean ascending, String index, String categoryIndex) {
+        SortPlan plan = new SortPlan(column, ascending, index, categoryIndex);
+        PLANS.put(plan.getKey(), plan);
+    }
+
+    /**
+     * 选择排序计划
+     *
+     * @param sortBy    排序字段，支持 createTime / create_time 两种写法，为空时按创建时间倒序
+     * @param sortOrder asc / desc，为空时使用该字段的默认方向
+     */
+    public SortPlan plan(String sortBy, String sortOrder) {
+        if (sortBy == null || sortBy.isBlank()) {
+            return DEFAULT_PLAN;
+        }
+        String column = toColumn(sortBy.trim());
+        String direction = sortOrder == null || sortOrder.isBlank() ? null : sortOrder.trim().toLowerCase();
+        if (direction != null && !"asc".equals(direction) && !"desc".equals(direction)) {
+            throw new RuntimeException("不支持的排序方向: " + sortOrder);
+        }
+
+        SortPlan plan;
+        if (direction != null) {
+            plan = PLANS.get(column + ":" + direction);
+        } else {
+            plan = PLANS.get(column + ":desc");
+            if (plan == null) {
+                plan = PLANS.get(column + ":asc");
+            }
+        }
+        if (plan == null) {
+            throw new RuntimeException("不支持的排序方式: " + sortBy + (direction != null ? " " + direction : "")
+                    + "，可选: " + String.join(", ", PLANS.keySet()));
+        }
+        return plan;
+    }
+
+    /**
+     * 应用排序并记录查询计划
+     */
+    public void apply(SortPlan plan, QueryWrapper<Bookmark> wrapper, Long categoryId, boolean hasKeyword) {
+        wrapper.orderByDesc("is_pinned");
+        wrapper.orderBy(true, plan.isAscending(), plan.getColumn(), "id");
+
+        if (log.isDebugEnabled()) {
+            String access = hasKeyword ? "ft_bookmark_text 全文索引过滤后排序"
+                    : (categoryId != null ? plan.getCategoryIndex() : plan.getIndex()) + " 索引范围扫描";
+            log.debug("书签列表查询计划: sort={}, access={}", plan.getKey(), access);
+        }
+    }
+
+    private String toColumn(String sortBy) {
+        StringBuilder column = new StringBuilder();
+        for (char c : sortBy.toCharArray()) {
+            if (Character.isUpperCase(c)) {
+                column.append('_').append(Character.toLowerCase(c));
+            } else {
+                column.append(c);
+            }
+        }
+        return column.toString();
+    }
+
+    /**
+     * 排序计划
+     */
+    @Getter
+    public static class SortPlan {
+        private final String column;
+        private final boolean ascending;
+        private final String index;
+        /**
+         * 按分类筛选时使用的索引
+         */
+        private final String categoryIndex;
+
+        SortPlan(String column, boolean ascending, String index, String categoryIndex) {
+            this.column = column;
+            this.ascending = ascending;
+            this.index = index;
+            this.categoryIndex = categoryIndex;
+        }
+
+        public String getKey() {
+            return column + ":" + (ascending ? "asc" : "desc");
+        }
+    }
+}
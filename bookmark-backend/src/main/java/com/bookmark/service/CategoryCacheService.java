@@ -1,25 +1,34 @@
 package com.bookmark.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.Category;
 import com.bookmark.mapper.BookmarkMapper;
 import com.bookmark.mapper.CategoryMapper;
+import com.bookmark.util.RedisKeyScanner;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
  * 分类缓存服务
  * 使用 Redis 缓存用户的分类列表，提高查询效率
+ * 分类静态数据与书签数量分开缓存：
+ * - user:categories:{userId}        分类列表 JSON（不含数量）
+ * - user:category:counts:{userId}   Hash，field 为分类ID，value 为书签数量
+ * 书签增删改只对数量 Hash 做 HINCRBY，不再重建整个分类列表
  */
 @Slf4j
 @Service
@@ -30,17 +39,43 @@ public class CategoryCacheService {
     private final CategoryMapper categoryMapper;
     private final BookmarkMapper bookmarkMapper;
     private final ObjectMapper objectMapper;
+    private final RedisKeyScanner redisKeyScanner;
 
     /**
      * Redis Key 前缀
      */
     private static final String CATEGORY_CACHE_PREFIX = "user:categories:";
 
+    /**
+     * 分类书签数量 Hash 前缀
+     */
+    private static final String CATEGORY_COUNT_PREFIX = "user:category:counts:";
+
+    /**
+     * 数量 Hash 的占位字段，保证没有书签的用户也存在 Hash，避免反复回源
+     */
+    private static final String COUNT_PLACEHOLDER_FIELD = "_";
+
     /**
      * 缓存过期时间：30分钟
      */
     private static final long CACHE_EXPIRE_MINUTES = 30;
 
+    /**
+     * 定时同步时每批处理的用户数
+     */
+    private static final int SYNC_BATCH_SIZE = 200;
+
+    /**
+     * 仅当数量 Hash 存在时才做增量（不存在时由下次读取回源重建，避免写入不完整的 Hash）
+     * ARGV: field1, delta1, field2, delta2, ...
+     */
+    private static final RedisScript<Long> INCREMENT_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return 0 end " +
+                    "for i = 1, #ARGV, 2 do redis.call('HINCRBY', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+                    "return 1",
+            Long.class);
+
     /**
      * 获取用户分类列表（带缓存）
      * Cache-Aside 模式：先查 Redis，miss 再查 MySQL 并回写
@@ -52,104 +87,175 @@ public class CategoryCacheService {
         String cacheKey = CATEGORY_CACHE_PREFIX + userId;
 
         try {
-            // 1. 尝试从 Redis 获取
+            List<Category> categories;
+
+            // 1. 尝试从 Redis 获取分类静态数据
             String cachedData = redisTemplate.opsForValue().get(cacheKey);
 
             if (cachedData != null) {
                 // 缓存命中
                 log.debug("从Redis获取用户{}的分类缓存", userId);
-                return objectMapper.readValue(cachedData, new TypeReference<List<Category>>() {
+                categories = objectMapper.readValue(cachedData, new TypeReference<List<Category>>() {
                 });
+            } else {
+                // 2. 缓存未命中，从 MySQL 查询并回写
+                log.debug("Redis缓存未命中，从MySQL查询用户{}的分类", userId);
+                categories = selectCategories(userId);
+                writeCategories(userId, categories);
             }
 
-            // 2. 缓存未命中，从 MySQL 查询
-            log.debug("Redis缓存未命中，从MySQL查询用户{}的分类", userId);
-            List<Category> categories = categoryMapper.selectList(
-                    new QueryWrapper<Category>()
-                            .eq("user_id", userId)
-                            .orderByAsc("sort_order")
-                            .orderByDesc("create_time"));
-
-            // 为每个分类计算书签数量
-            populateBookmarkCounts(categories, userId);
-
-            // 3. 写入 Redis 缓存
-            if (categories != null && !categories.isEmpty()) {
-                String jsonData = objectMapper.writeValueAsString(categories);
-                redisTemplate.opsForValue().set(cacheKey, jsonData, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-                log.debug("已将用户{}的分类缓存到Redis，过期时间{}分钟", userId, CACHE_EXPIRE_MINUTES);
-            }
-
+            // 3. 合并书签数量
+            applyCounts(categories, getBookmarkCounts(userId));
             return categories;
 
         } catch (Exception e) {
             log.error("获取用户分类缓存失败，降级到MySQL查询: userId={}", userId, e);
             // 降级：直接查询 MySQL
-            return categoryMapper.selectList(
-                    new QueryWrapper<Category>()
-                            .eq("user_id", userId)
-                            .orderByAsc("sort_order")
-                            .orderByDesc("create_time"));
+            List<Category> categories = selectCategories(userId);
+            applyCounts(categories, countByCategory(userId));
+            return categories;
         }
     }
 
     /**
      * 更新用户分类缓存
-     * 在增加、修改、删除分类时调用
+     * 在增加、修改、删除分类或批量导入时调用，重建分类列表和数量 Hash
      * 
      * @param userId 用户ID
      */
     public void refreshUserCategoriesCache(Long userId) {
-        String cacheKey = CATEGORY_CACHE_PREFIX + userId;
-
         try {
             // 从数据库查询最新数据
-            List<Category> categories = categoryMapper.selectList(
-                    new QueryWrapper<Category>()
-                            .eq("user_id", userId)
-                            .orderByAsc("sort_order")
-                            .orderByDesc("create_time"));
+            List<Category> categories = selectCategories(userId);
+            writeCategories(userId, categories);
+            writeBookmarkCounts(userId, countByCategory(userId));
+            log.debug("已刷新用户{}的分类缓存（包含书签数量）", userId);
+        } catch (Exception e) {
+            log.error("刷新用户分类缓存失败: userId={}", userId, e);
+        }
+    }
 
-            // 为每个分类计算书签数量
-            populateBookmarkCounts(categories, userId);
+    /**
+     * 增量调整单个分类的书签数量
+     * 在书签创建、删除、恢复、移动分类时调用，O(1)
+     * 
+     * @param userId     用户ID
+     * @param categoryId 分类ID（为空时忽略）
+     * @param delta      变化量
+     */
+    public void adjustBookmarkCount(Long userId, Long categoryId, int delta) {
+        if (categoryId == null || delta == 0) {
+            return;
+        }
+        adjustBookmarkCounts(userId, Collections.singletonMap(categoryId, delta));
+    }
 
-            // 更新到 Redis
-            if (categories != null && !categories.isEmpty()) {
-                String jsonData = objectMapper.writeValueAsString(categories);
-                redisTemplate.opsForValue().set(cacheKey, jsonData, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-                log.debug("已刷新用户{}的分类缓存（包含书签数量）", userId);
-            } else {
-                // 如果分类为空，删除缓存
-                redisTemplate.delete(cacheKey);
-                log.debug("用户{}无分类数据，已删除缓存", userId);
+    /**
+     * 批量增量调整分类书签数量（一次 Redis 调用）
+     * 
+     * @param userId 用户ID
+     * @param deltas 分类ID -> 变化量
+     */
+    public void adjustBookmarkCounts(Long userId, Map<Long, Integer> deltas) {
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<Long, Integer> entry : deltas.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null && entry.getValue() != 0) {
+                args.add(String.valueOf(entry.getKey()));
+                args.add(String.valueOf(entry.getValue()));
             }
+        }
+        if (args.isEmpty()) {
+            return;
+        }
 
+        try {
+            redisTemplate.execute(INCREMENT_SCRIPT,
+                    Collections.singletonList(CATEGORY_COUNT_PREFIX + userId), args.toArray());
         } catch (Exception e) {
-            log.error("刷新用户分类缓存失败: userId={}", userId, e);
+            log.error("调整分类书签数量失败，删除数量缓存等待重建: userId={}", userId, e);
+            redisTemplate.delete(CATEGORY_COUNT_PREFIX + userId);
         }
     }
 
     /**
-     * 为分类列表填充书签数量
-     * 
-     * @param categories 分类列表
-     * @param userId     用户ID
+     * 读取数量 Hash，不存在时从 MySQL 回源重建
      */
-    private void populateBookmarkCounts(List<Category> categories, Long userId) {
-        if (categories == null || categories.isEmpty()) {
+    private Map<Long, Integer> getBookmarkCounts(Long userId) {
+        Map<Object, Object> entries = redisTemplate.opsForHash().entries(CATEGORY_COUNT_PREFIX + userId);
+        if (entries.isEmpty()) {
+            Map<Long, Integer> counts = countByCategory(userId);
+            writeBookmarkCounts(userId, counts);
+            return counts;
+        }
+
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+            String field = String.valueOf(entry.getKey());
+            if (!COUNT_PLACEHOLDER_FIELD.equals(field)) {
+                counts.put(Long.parseLong(field), Integer.parseInt(String.valueOf(entry.getValue())));
+            }
+        }
+        return counts;
+    }
+
+    private void writeBookmarkCounts(Long userId, Map<Long, Integer> counts) {
+        String countKey = CATEGORY_COUNT_PREFIX + userId;
+        Map<String, String> hash = new HashMap<>();
+        hash.put(COUNT_PLACEHOLDER_FIELD, "0");
+        counts.forEach((categoryId, count) -> hash.put(String.valueOf(categoryId), String.valueOf(count)));
+
+        redisTemplate.delete(countKey);
+        redisTemplate.opsForHash().putAll(countKey, hash);
+        redisTemplate.expire(countKey, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+    }
+
+    private void writeCategories(Long userId, List<Category> categories) throws Exception {
+        String cacheKey = CATEGORY_CACHE_PREFIX + userId;
+        if (categories != null && !categories.isEmpty()) {
+            // 数量单独缓存，列表中不保存
+            categories.forEach(c -> c.setBookmarkCount(null));
+            String jsonData = objectMapper.writeValueAsString(categories);
+            redisTemplate.opsForValue().set(cacheKey, jsonData, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
+            log.debug("已将用户{}的分类缓存到Redis，过期时间{}分钟", userId, CACHE_EXPIRE_MINUTES);
+        } else {
+            // 如果分类为空，删除缓存
+            redisTemplate.delete(cacheKey);
+            log.debug("用户{}无分类数据，已删除缓存", userId);
+        }
+    }
+
+    private List<Category> selectCategories(Long userId) {
+        return categoryMapper.selectList(
+                new QueryWrapper<Category>()
+                        .eq("user_id", userId)
+                        .orderByAsc("sort_order")
+                        .orderByDesc("create_time"));
+    }
+
+    /**
+     * 一次 GROUP BY 查询得到用户所有分类的书签数量，代替逐个分类 COUNT
+     */
+    private Map<Long, Integer> countByCategory(Long userId) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Map<String, Object> row : bookmarkMapper.countByCategory(userId)) {
+            counts.put(toLong(row.get("category_id")), toLong(row.get("cnt")).intValue());
+        }
+        return counts;
+    }
+
+    private void applyCounts(List<Category> categories, Map<Long, Integer> counts) {
+        if (categories == null) {
             return;
         }
         for (Category category : categories) {
-            Long count = bookmarkMapper.selectCount(
-                    new QueryWrapper<Bookmark>()
-                            .eq("category_id", category.getId())
-                            .eq("user_id", userId)
-                            .eq("status", 1) // 只统计正常状态的书签
-            );
-            category.setBookmarkCount(count.intValue());
+            category.setBookmarkCount(counts.getOrDefault(category.getId(), 0));
         }
     }
 
+    private Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+
     /**
      * 删除用户分类缓存
      * 在删除分类或需要强制刷新时调用
@@ -157,10 +263,8 @@ public class CategoryCacheService {
      * @param userId 用户ID
      */
     public void invalidateUserCategoriesCache(Long userId) {
-        String cacheKey = CATEGORY_CACHE_PREFIX + userId;
-
         try {
-            redisTemplate.delete(cacheKey);
+            redisTemplate.delete(List.of(CATEGORY_CACHE_PREFIX + userId, CATEGORY_COUNT_PREFIX + userId));
             log.debug("已删除用户{}的分类缓存", userId);
         } catch (Exception e) {
             log.error("删除用户分类缓存失败: userId={}", userId, e);
@@ -169,60 +273,86 @@ public class CategoryCacheService {
 
     /**
      * 定时同步任务：每5分钟同步一次 Redis 和 MySQL
-     * 确保缓存数据的一致性
+     * 同时作为数量 Hash 的对账任务，修正增量维护产生的偏差
+     * 按批处理用户：每批只执行一次分类查询和一次分组计数查询
      */
     @Scheduled(fixedRate = 5 * 60 * 1000) // 5分钟
     public void syncCategoryCacheWithDatabase() {
         try {
             log.info("开始同步分类缓存与数据库...");
 
-            // 获取所有缓存的 key
-            Set<String> cacheKeys = redisTemplate.keys(CATEGORY_CACHE_PREFIX + "*");
-
-            if (cacheKeys == null || cacheKeys.isEmpty()) {
-                log.info("没有需要同步的分类缓存");
-                return;
-            }
-
-            int syncCount = 0;
-            for (String cacheKey : cacheKeys) {
-                try {
-                    // 提取 userId
-                    String userIdStr = cacheKey.substring(CATEGORY_CACHE_PREFIX.length());
-                    Long userId = Long.parseLong(userIdStr);
-
-                    // 从数据库查询最新数据
-                    List<Category> categories = categoryMapper.selectList(
-                            new QueryWrapper<Category>()
-                                    .eq("user_id", userId)
-                                    .orderByAsc("sort_order")
-                                    .orderByDesc("create_time"));
-
-                    // 为每个分类计算书签数量
-                    populateBookmarkCounts(categories, userId);
-
-                    // 更新缓存
-                    if (categories != null && !categories.isEmpty()) {
-                        String jsonData = objectMapper.writeValueAsString(categories);
-                        redisTemplate.opsForValue().set(cacheKey, jsonData, CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES);
-                        syncCount++;
-                    } else {
-                        // 数据库中没有数据，删除缓存
-                        redisTemplate.delete(cacheKey);
+            // 使用 SCAN 分批遍历缓存的 key，每批解析出用户ID后按批同步
+            int[] syncCount = {0};
+            long scanned = redisKeyScanner.scan(CATEGORY_CACHE_PREFIX + "*", cacheKeys -> {
+                List<Long> userIds = new ArrayList<>();
+                for (String cacheKey : cacheKeys) {
+                    try {
+                        userIds.add(Long.parseLong(cacheKey.substring(CATEGORY_CACHE_PREFIX.length())));
+                    } catch (NumberFormatException e) {
+                        log.warn("无效的分类缓存 key: {}", cacheKey);
                     }
+                }
 
-                } catch (Exception e) {
-                    log.error("同步缓存失败: cacheKey={}", cacheKey, e);
+                for (int i = 0; i < userIds.size(); i += SYNC_BATCH_SIZE) {
+                    List<Long> batch = userIds.subList(i, Math.min(i + SYNC_BATCH_SIZE, userIds.size()));
+                    try {
+                        syncCount[0] += syncBatch(batch);
+                    } catch (Exception e) {
+                        log.error("同步缓存失败: userIds={}", batch, e);
+                    }
                 }
+            });
+
+            if (scanned == 0) {
+                log.info("没有需要同步的分类缓存");
+                return;
             }
 
-            log.info("分类缓存同步完成，共同步 {} 个用户", syncCount);
+            log.info("分类缓存同步完成，共同步 {} 个用户", syncCount[0]);
 
         } catch (Exception e) {
             log.error("分类缓存同步任务失败", e);
         }
     }
 
+    /**
+     * 同步一批用户的分类缓存
+     * 
+     * @return 成功写入缓存的用户数
+     */
+    private int syncBatch(List<Long> userIds) throws Exception {
+        // 一次查询出整批用户的分类
+        Map<Long, List<Category>> categoriesByUser = new HashMap<>();
+        categoryMapper.selectList(
+                new QueryWrapper<Category>()
+                        .in("user_id", userIds)
+                        .orderByAsc("sort_order")
+                        .orderByDesc("create_time"))
+                .forEach(c -> categoriesByUser.computeIfAbsent(c.getUserId(), k -> new ArrayList<>()).add(c));
+
+        // 一次分组计数得到整批用户各分类的书签数量
+        Map<Long, Map<Long, Integer>> countsByUser = new HashMap<>();
+        for (Map<String, Object> row : bookmarkMapper.countByUserAndCategory(userIds)) {
+            countsByUser.computeIfAbsent(toLong(row.get("user_id")), k -> new HashMap<>())
+                    .put(toLong(row.get("category_id")), toLong(row.get("cnt")).intValue());
+        }
+
+        int syncCount = 0;
+        for (Long userId : userIds) {
+            List<Category> categories = categoriesByUser.get(userId);
+
+            if (categories != null && !categories.isEmpty()) {
+                writeCategories(userId, categories);
+                writeBookmarkCounts(userId, countsByUser.getOrDefault(userId, Collections.emptyMap()));
+                syncCount++;
+            } else {
+                // 数据库中没有数据，删除缓存
+                invalidateUserCategoriesCache(userId);
+            }
+        }
+        return syncCount;
+    }
+
     /**
      * 清理过期缓存（可选）
      * Redis 会自动清理过期 key，此方法用于额外的清理逻辑
@@ -232,24 +362,24 @@ public class CategoryCacheService {
         try {
             log.info("开始清理过期的分类缓存...");
 
-            Set<String> cacheKeys = redisTemplate.keys(CATEGORY_CACHE_PREFIX + "*");
+            int[] cleanedCount = {0};
+            long scanned = redisKeyScanner.scan(CATEGORY_CACHE_PREFIX + "*", cacheKeys -> {
+                for (String cacheKey : cacheKeys) {
+                    Long ttl = redisTemplate.getExpire(cacheKey, TimeUnit.SECONDS);
+                    if (ttl != null && ttl == -1) {
+                        // -1 表示永不过期，此类缓存不会被 Redis 自动清理
+                        redisTemplate.delete(cacheKey);
+                        cleanedCount[0]++;
+                    }
+                }
+            });
 
-            if (cacheKeys == null || cacheKeys.isEmpty()) {
+            if (scanned == 0) {
                 log.info("没有需要清理的分类缓存");
                 return;
             }
 
-            int cleanedCount = 0;
-            for (String cacheKey : cacheKeys) {
-                Long ttl = redisTemplate.getExpire(cacheKey, TimeUnit.SECONDS);
-                if (ttl != null && ttl < 0) {
-                    // TTL 为 -2 表示key不存在，-1表示永不过期
-                    redisTemplate.delete(cacheKey);
-                    cleanedCount++;
-                }
-            }
-
-            log.info("分类缓存清理完成，共清理 {} 个过期键", cleanedCount);
+            log.info("分类缓存清理完成，共清理 {} 个过期键", cleanedCount[0]);
 
         } catch (Exception e) {
             log.error("清理过期缓存失败", e);
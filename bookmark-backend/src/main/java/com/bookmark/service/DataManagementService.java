@@ -1,8 +1,12 @@
 package com.bookmark.service;
 
-import com.bookmark.dto.request.ImportRequest;
 import com.bookmark.dto.response.ExportResponse;
 import com.bookmark.dto.response.ImportResponse;
+import com.bookmark.util.BookmarkExportWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
 
 /**
  * 数据管理服务接口
@@ -17,12 +21,25 @@ public interface DataManagementService {
     ExportResponse exportData();
 
     /**
-     * 导入数据
+     * 流式导出用户书签：从数据库逐行读取并写出，内存占用与书签数量无关
+     * 
+     * @param userId 用户ID（写出在异步线程中执行，由调用方在请求线程中解析）
+     * @param format 导出格式
+     * @param out    输出流（不会被关闭）
+     */
+    void exportBookmarks(Long userId, BookmarkExportWriter.Format format, OutputStream out) throws IOException;
+
+    /**
+     * 导入数据（由导入任务在后台线程中调用）
+     * 书签按批写入、每批单独提交；断点之前的条目跳过，已取消时停止导入
      * 
-     * @param request 导入请求
-     * @return 导入响应（包含统计信息和错误列表）
+     * @param userId     用户ID
+     * @param importType 导入类型: CHROME, EDGE, JSON
+     * @param reader     导入内容（浏览器 HTML 边读边解析）
+     * @param checkpoint 断点与取消回调
+     * @return 导入响应（本次执行的统计信息和错误列表）
      */
-    ImportResponse importData(ImportRequest request);
+    ImportResponse importData(Long userId, String importType, Reader reader, ImportCheckpoint checkpoint);
 
     /**
      * 清除用户所有数据
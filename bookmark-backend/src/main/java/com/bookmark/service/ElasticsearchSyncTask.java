@@ -5,19 +5,41 @@ import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.BookmarkDocument;
 import com.bookmark.mapper.BookmarkMapper;
 import com.bookmark.mapper.BookmarkSearchRepository;
+import com.bookmark.service.impl.LocalSearchEngine;
+import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexInformation;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.index.AliasAction;
+import org.springframework.data.elasticsearch.core.index.AliasActionParameters;
+import org.springframework.data.elasticsearch.core.index.AliasActions;
+import org.springframework.data.elasticsearch.core.mapping.IndexCoordinates;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 /**
  * ES 同步定时任务
- * 每30分钟检查并同步数据库中未同步到 ES 的书签
+ * 按 update_time 水位增量同步：每次只读取上次同步之后变化的书签，
+ * 正常状态的写入 ES，已删除（status=0）的从 ES 删除；
+ * 全量重建通过版本索引 + 别名切换完成，不影响线上搜索
  */
 @Slf4j
 @Service
@@ -26,99 +48,349 @@ public class ElasticsearchSyncTask {
 
     private final BookmarkMapper bookmarkMapper;
     private final BookmarkSearchRepository searchRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ElasticsearchOperations elasticsearchOperations;
+    private final LocalSearchEngine localSearchEngine;
 
     /**
-     * 每30分钟执行一次同步
-     * 双向同步：MySQL → ES（添加缺失），ES → MySQL（删除孤儿文档）
+     * 搜索使用的别名，实际数据在 bookmarks_v{n} 版本索引中
      */
-    @Scheduled(fixedRate = 30 * 60 * 1000) // 30分钟 = 30 * 60 * 1000 毫秒
+    private static final String INDEX_ALIAS = "bookmarks";
+    private static final String VERSIONED_INDEX_PREFIX = "bookmarks_v";
+
+    /**
+     * 同步水位（已同步到的 update_time 和 id）
+     */
+    private static final String WATERMARK_KEY = "es:sync:watermark";
+
+    /**
+     * 每次从水位回退的时间，覆盖水位附近延迟提交的事务（重复同步是幂等的）
+     */
+    private static final long OVERLAP_SECONDS = 120;
+
+    private static final DateTimeFormatter WATERMARK_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    @Value("${bookmark.search.sync-batch-size:500}")
+    private int batchSize;
+
+    @Value("${bookmark.search.reindex-chunk-size:1000}")
+    private int reindexChunkSize;
+
+    @Value("${bookmark.search.reindex-concurrency:4}")
+    private int reindexConcurrency;
+
+    /**
+     * 增量同步与别名切换互斥，保证切换后的水位回退不会被覆盖
+     */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final AtomicBoolean reindexRunning = new AtomicBoolean(false);
+    private volatile ReindexProgress reindexProgress;
+
+    /**
+     * 每分钟执行一次增量同步
+     * 按 (update_time, id) 游标分批读取，内存占用与批大小相关，与总书签数无关
+     */
+    @Scheduled(fixedDelay = 60 * 1000)
     public void syncBookmarksToElasticsearch() {
-        log.info("开始执行 ES 双向同步定时任务...");
+        syncLock.lock();
+        try {
+            syncChanges();
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void syncChanges() {
+        LocalDateTime watermark = readWatermark();
+        LocalDateTime cursorTime = watermark.minusSeconds(OVERLAP_SECONDS);
+        long cursorId = 0;
+        int indexed = 0;
+        int deleted = 0;
 
         try {
-            // 1. 获取数据库中所有正常状态的书签 ID
-            QueryWrapper<Bookmark> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("status", 1).select("id"); // 只查询 ID 字段以提高性能
-            List<Bookmark> dbBookmarks = bookmarkMapper.selectList(queryWrapper);
-
-            Set<Long> dbBookmarkIds = dbBookmarks.stream()
-                    .map(Bookmark::getId)
-                    .collect(Collectors.toSet());
-
-            // 2. 获取 ES 中所有书签文档
-            Iterable<BookmarkDocument> esDocuments = searchRepository.findAll();
-            Set<Long> esBookmarkIds = StreamSupport
-                    .stream(esDocuments.spliterator(), false)
-                    .map(BookmarkDocument::getId)
-                    .collect(Collectors.toSet());
-
-            // === 第一阶段：MySQL → ES，同步缺失的书签 ===
-            List<Long> idsToSyncToEs = dbBookmarkIds.stream()
-                    .filter(id -> !esBookmarkIds.contains(id))
-                    .collect(Collectors.toList());
+            while (true) {
+                LocalDateTime time = cursorTime;
+                long id = cursorId;
+                List<Bookmark> changed = bookmarkMapper.selectChangedSince(time, id, batchSize);
+                if (changed.isEmpty()) {
+                    break;
+                }
 
-            if (!idsToSyncToEs.isEmpty()) {
-                // 重新查询完整的书签信息
-                QueryWrapper<Bookmark> fullQueryWrapper = new QueryWrapper<>();
-                fullQueryWrapper.eq("status", 1).in("id", idsToSyncToEs);
-                List<Bookmark> bookmarksToSync = bookmarkMapper.selectList(fullQueryWrapper);
+                List<BookmarkDocument> toIndex = new ArrayList<>();
+                List<Long> toDelete = new ArrayList<>();
+                for (Bookmark bookmark : changed) {
+                    if (Integer.valueOf(1).equals(bookmark.getStatus())) {
+                        toIndex.add(BookmarkDocument.fromBookmark(bookmark));
+                    } else {
+                        toDelete.add(bookmark.getId());
+                    }
+                }
 
-                List<BookmarkDocument> documentsToSave = bookmarksToSync.stream()
-                        .map(BookmarkDocument::fromBookmark)
-                        .collect(Collectors.toList());
+                // 本地索引先更新，ES 写入失败时降级搜索也不会返回过期或已删除的书签
+                try {
+                    localSearchEngine.onBookmarksChanged(changed, Collections.emptyList());
+                } catch (Exception e) {
+                    log.error("更新本地搜索索引失败: count={}, error={}", changed.size(), e.getMessage(), e);
+                }
 
-                searchRepository.saveAll(documentsToSave);
-                log.info("MySQL → ES 同步完成，新增 {} 条书签", documentsToSave.size());
-            } else {
-                log.info("MySQL → ES：所有书签已同步");
-            }
+                // 每批一次 bulk 写入和一次批量删除
+                if (!toIndex.isEmpty()) {
+                    searchRepository.saveAll(toIndex);
+                    indexed += toIndex.size();
+                }
+                if (!toDelete.isEmpty()) {
+                    searchRepository.deleteAllById(toDelete);
+                    deleted += toDelete.size();
+                }
 
-            // === 第二阶段：ES → MySQL，删除 ES 中的孤儿文档 ===
-            List<Long> orphanedEsIds = esBookmarkIds.stream()
-                    .filter(id -> !dbBookmarkIds.contains(id))
-                    .collect(Collectors.toList());
+                Bookmark last = changed.get(changed.size() - 1);
+                cursorTime = last.getUpdateTime();
+                cursorId = last.getId();
+                if (cursorTime.isAfter(watermark)) {
+                    // 每批成功后推进水位，任务中断时下次从这里继续
+                    watermark = cursorTime;
+                    writeWatermark(watermark);
+                }
 
-            if (!orphanedEsIds.isEmpty()) {
-                searchRepository.deleteAllById(orphanedEsIds);
-                log.info("ES → MySQL 清理完成，删除 {} 条孤儿文档", orphanedEsIds.size());
-            } else {
-                log.info("ES → MySQL：无孤儿文档需要清理");
+                if (changed.size() < batchSize) {
+                    break;
+                }
             }
 
-            log.info("ES 双向同步任务执行完成");
+            if (indexed > 0 || deleted > 0) {
+                log.info("ES 增量同步完成: 写入 {} 条，删除 {} 条，水位 {}", indexed, deleted, watermark);
+            } else {
+                log.debug("ES 增量同步：无变化");
+            }
+        } catch (Exception e) {
+            log.error("ES 增量同步失败: {}", e.getMessage(), e);
+        }
+    }
 
+    private LocalDateTime readWatermark() {
+        try {
+            String value = redisTemplate.opsForValue().get(WATERMARK_KEY);
+            if (value != null) {
+                return LocalDateTime.parse(value, WATERMARK_FORMAT);
+            }
         } catch (Exception e) {
-            log.error("ES 同步定时任务执行失败: {}", e.getMessage(), e);
+            log.warn("读取 ES 同步水位失败，从头开始同步: {}", e.getMessage());
         }
+        // 没有水位时从最早的数据开始，分批追平
+        return LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
+
+    private void writeWatermark(LocalDateTime watermark) {
+        redisTemplate.opsForValue().set(WATERMARK_KEY, watermark.format(WATERMARK_FORMAT));
     }
 
     /**
-     * 手动触发全量同步
-     * 清空 ES 并重新同步所有书签
+     * 手动触发全量重建（蓝绿切换）
+     * 1. 新建版本索引 bookmarks_v{n}
+     * 2. 流式读取正常状态书签，按块并发 bulk 写入新索引（并发数受限，读取端自动背压）
+     * 3. 原子切换别名 bookmarks 到新索引，期间搜索始终可用
+     * 4. 水位回退到重建开始时间，由增量同步补齐重建期间的变更
      */
+    @Async
     public void fullSync() {
-        log.info("开始执行全量 ES 同步...");
+        if (!reindexRunning.compareAndSet(false, true)) {
+            log.warn("全量重建正在进行中，忽略本次请求");
+            return;
+        }
 
+        ReindexProgress progress = new ReindexProgress();
+        progress.setState("RUNNING");
+        progress.setStartTime(LocalDateTime.now());
+        reindexProgress = progress;
+        long startMillis = System.currentTimeMillis();
+
+        ExecutorService bulkExecutor = Executors.newFixedThreadPool(reindexConcurrency);
         try {
-            // 1. 清空 ES 索引
-            searchRepository.deleteAll();
+            String newIndex = nextIndexName();
+            progress.setIndex(newIndex);
+            progress.setTotal(bookmarkMapper.selectCount(new QueryWrapper<Bookmark>().eq("status", 1)));
+            log.info("开始全量重建 ES 索引: index={}, total={}", newIndex, progress.getTotal());
 
-            // 2. 获取所有正常状态的书签
-            QueryWrapper<Bookmark> queryWrapper = new QueryWrapper<>();
-            queryWrapper.eq("status", 1);
-            List<Bookmark> allBookmarks = bookmarkMapper.selectList(queryWrapper);
+            // 1. 按实体定义的 settings / mapping 创建新索引
+            IndexOperations entityOps = elasticsearchOperations.indexOps(BookmarkDocument.class);
+            IndexCoordinates newCoordinates = IndexCoordinates.of(newIndex);
+            elasticsearchOperations.indexOps(newCoordinates)
+                    .create(entityOps.createSettings(), entityOps.createMapping());
 
-            // 3. 同步到 ES
-            List<BookmarkDocument> documents = allBookmarks.stream()
-                    .map(BookmarkDocument::fromBookmark)
-                    .collect(Collectors.toList());
+            // 2. 流式读取并按块写入
+            Semaphore permits = new Semaphore(reindexConcurrency);
+            List<BookmarkDocument> chunk = new ArrayList<>(reindexChunkSize);
+            bookmarkMapper.streamActive(context -> {
+                chunk.add(BookmarkDocument.fromBookmark(context.getResultObject()));
+                if (chunk.size() >= reindexChunkSize) {
+                    submitChunk(bulkExecutor, permits, new ArrayList<>(chunk), newCoordinates, progress, startMillis);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                submitChunk(bulkExecutor, permits, new ArrayList<>(chunk), newCoordinates, progress, startMillis);
+            }
+            // 取回全部许可即表示所有块已写完
+            permits.acquireUninterruptibly(reindexConcurrency);
+            if (progress.getFailed() > 0) {
+                throw new IllegalStateException("有 " + progress.getFailed() + " 条书签写入新索引失败");
+            }
+            elasticsearchOperations.indexOps(newCoordinates).refresh();
+
+            // 3. 原子切换别名，4. 回退水位
+            syncLock.lock();
+            try {
+                swapAlias(newIndex);
+                writeWatermark(progress.getStartTime());
+            } finally {
+                syncLock.unlock();
+            }
+            deleteOldIndices(newIndex);
+
+            progress.setState("SUCCESS");
+            log.info("全量重建 ES 索引完成: index={}, indexed={}, rate={}/s",
+                    newIndex, progress.getIndexed(), progress.getDocsPerSecond());
+        } catch (Exception e) {
+            progress.setState("FAILED");
+            progress.setMessage(e.getMessage());
+            log.error("全量重建 ES 索引失败，别名保持不变: {}", e.getMessage(), e);
+            if (progress.getIndex() != null) {
+                try {
+                    elasticsearchOperations.indexOps(IndexCoordinates.of(progress.getIndex())).delete();
+                } catch (Exception ex) {
+                    log.warn("删除未完成的索引失败: index={}, error={}", progress.getIndex(), ex.getMessage());
+                }
+            }
+        } finally {
+            bulkExecutor.shutdown();
+            progress.setEndTime(LocalDateTime.now());
+            progress.setElapsedMs(System.currentTimeMillis() - startMillis);
+            reindexRunning.set(false);
+        }
+    }
+
+    /**
+     * 获取最近一次全量重建的进度
+     */
+    public ReindexProgress getReindexProgress() {
+        return reindexProgress;
+    }
+
+    private void submitChunk(ExecutorService executor, Semaphore permits, List<BookmarkDocument> docs,
+            IndexCoordinates coordinates, ReindexProgress progress, long startMillis) {
+        // 并发块数已满时阻塞读取线程，内存占用不超过 concurrency * chunkSize
+        permits.acquireUninterruptibly();
+        executor.execute(() -> {
+            try {
+                elasticsearchOperations.save(docs, coordinates);
+                progress.addIndexed(docs.size());
+            } catch (Exception e) {
+                progress.addFailed(docs.size());
+                log.error("批量写入新索引失败: size={}, error={}", docs.size(), e.getMessage());
+            } finally {
+                permits.release();
+                long elapsed = Math.max(System.currentTimeMillis() - startMillis, 1);
+                progress.setDocsPerSecond(progress.getIndexed() * 1000 / elapsed);
+            }
+        });
+    }
+
+    /**
+     * 计算下一个版本索引名
+     */
+    private String nextIndexName() {
+        int version = 0;
+        for (String name : listVersionedIndices()) {
+            try {
+                version = Math.max(version, Integer.parseInt(name.substring(VERSIONED_INDEX_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // 非版本号后缀的索引不参与计算
+            }
+        }
+        return VERSIONED_INDEX_PREFIX + (version + 1);
+    }
+
+    private List<String> listVersionedIndices() {
+        return elasticsearchOperations.indexOps(IndexCoordinates.of(VERSIONED_INDEX_PREFIX + "*"))
+                .getInformation().stream()
+                .map(IndexInformation::getName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 在一个 _aliases 请求中完成切换：
+     * 旧版本索引移除别名，新索引添加别名；如果 bookmarks 仍是旧的实体索引则直接删除
+     */
+    private void swapAlias(String newIndex) {
+        AliasActions actions = new AliasActions();
 
-            searchRepository.saveAll(documents);
+        IndexCoordinates aliasCoordinates = IndexCoordinates.of(INDEX_ALIAS);
+        if (elasticsearchOperations.indexOps(aliasCoordinates).exists()) {
+            for (IndexInformation info : elasticsearchOperations.indexOps(aliasCoordinates).getInformation()) {
+                if (INDEX_ALIAS.equals(info.getName())) {
+                    actions.add(new AliasAction.RemoveIndex(AliasActionParameters.builder()
+                            .withIndices(INDEX_ALIAS).build()));
+                } else if (!newIndex.equals(info.getName())) {
+                    actions.add(new AliasAction.Remove(AliasActionParameters.builder()
+                            .withIndices(info.getName()).withAliases(INDEX_ALIAS).build()));
+                }
+            }
+        }
+        actions.add(new AliasAction.Add(AliasActionParameters.builder()
+                .withIndices(newIndex).withAliases(INDEX_ALIAS).build()));
 
-            log.info("全量 ES 同步完成，共同步 {} 条书签", documents.size());
+        elasticsearchOperations.indexOps(IndexCoordinates.of(newIndex)).alias(actions);
+        log.info("ES 别名已切换: {} -> {}", INDEX_ALIAS, newIndex);
+    }
 
+    /**
+     * 保留当前和上一个版本（用于回滚），删除更早的版本索引
+     */
+    private void deleteOldIndices(String currentIndex) {
+        try {
+            List<String> oldIndices = listVersionedIndices().stream()
+                    .filter(name -> !name.equals(currentIndex))
+                    .sorted(Comparator.comparingInt(this::indexVersion).reversed())
+                    .collect(Collectors.toList());
+            for (String name : oldIndices.subList(Math.min(1, oldIndices.size()), oldIndices.size())) {
+                elasticsearchOperations.indexOps(IndexCoordinates.of(name)).delete();
+                log.info("已删除旧版本索引: {}", name);
+            }
         } catch (Exception e) {
-            log.error("全量 ES 同步失败: {}", e.getMessage(), e);
+            log.warn("清理旧版本索引失败: {}", e.getMessage());
+        }
+    }
+
+    private int indexVersion(String name) {
+        try {
+            return Integer.parseInt(name.substring(VERSIONED_INDEX_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 全量重建进度
+     */
+    @Data
+    public static class ReindexProgress {
+        private String state; // RUNNING / SUCCESS / FAILED
+        private String index;
+        private long total;
+        private volatile long indexed;
+        private volatile long failed;
+        private volatile long docsPerSecond;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private long elapsedMs;
+        private String message;
+
+        synchronized void addIndexed(int count) {
+            indexed += count;
+        }
+
+        synchronized void addFailed(int count) {
+            failed += count;
         }
     }
 }
@@ -0,0 +1,41 @@
+package com.bookmark.service;
+
+import com.bookmark.dto.response.ImportResponse;
+
+/**
+ * 导入断点与取消回调
+ * 导入按源文件中书签的顺序编号（从 1 开始），断点为已写入数据库的最后一条的编号
+ */
+public interface ImportCheckpoint {
+
+    /**
+     * 已提交的源书签条数，恢复执行时跳过这些条目
+     */
+    default int getResumeFrom() {
+        return 0;
+    }
+
+    /**
+     * 每读取一条源书签调用一次，任务已取消时抛出 CancellationException 终止导入
+     *
+     * @param processed 当前条目编号
+     */
+    default void onEntry(int processed) {
+    }
+
+    /**
+     * 任务是否已取消（取消后缓冲中的书签不再写入）
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * 一批书签写入后调用；批量写入时与该批书签在同一事务中执行，抛出异常会回滚该批
+     *
+     * @param processed 该批最后一条的编号
+     * @param response  本次执行的累计统计
+     */
+    default void onChunkCommitted(int processed, ImportResponse response) {
+    }
+}
@@ -0,0 +1,474 @@
+package com.bookmark.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.dto.response.ImportJobResponse;
+import com.bookmark.dto.response.ImportResponse;
+import com.bookmark.entity.ImportJob;
+import com.bookmark.entity.User;
+import com.bookmark.mapper.ImportJobMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 书签导入任务
+ * - 提交时把上传内容写入暂存文件并创建任务记录，立即返回任务ID
+ * - 固定大小的线程池执行导入，排队数超过 queue-capacity 时拒绝提交；每个用户同时只能有一个未完成的任务
+ * - 每批书签写入时在同一事务中保存断点（已处理的源书签条数）和统计，进度按批更新
+ * - 取消：数据库中标记取消，执行节点在下一条书签或下一次保存断点时停止，已提交的批次保留
+ * - 恢复：执行节点定时刷新心跳；心跳超时的未完成任务由暂存文件所在的节点认领，从断点继续导入，
+ *   本节点没有暂存文件的任务不认领；超过保留天数仍未恢复的任务标记为失败
+ */
+@Slf4j
+@Service
+public class ImportJobService {
+
+    @Autowired
+    private ImportJobMapper importJobMapper;
+
+    @Autowired
+    private DataManagementService dataManagementService;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${bookmark.import.workers:2}")
+    private int workers;
+
+    @Value("${bookmark.import.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${bookmark.import.job-dir:${java.io.tmpdir}/bookmark-import}")
+    private String jobDir;
+
+    @Value("${bookmark.import.lease-seconds:120}")
+    private int leaseSeconds;
+
+    @Value("${bookmark.import.retention-days:7}")
+    private int retentionDays;
+
+    private static final String[] STATUS_NAMES = { "PENDING", "RUNNING", "COMPLETED", "FAILED", "CANCELLED" };
+
+    /**
+     * 每次扫描恢复的任务数上限
+     */
+    private static final int RESUME_BATCH = 20;
+
+    /**
+     * 当前节点标识（进程号@主机名），重启后变化，旧任务等心跳超时后重新认领
+     */
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName();
+
+    /**
+     * 本节点排队和执行中的任务
+     */
+    private final Map<Long, RunningJob> localJobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "import-job-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未完成的任务保持排队/执行中状态，心跳超时后由其他节点或重启后的本节点恢复
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交导入内容（JSON body 方式）
+     */
+    public ImportJobResponse submit(String importType, String content) {
+        return submit(importType, new ByteArrayInputStream(
+                (content != null ? content : "").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 提交导入任务：暂存上传内容、创建任务记录并加入线程池
+     */
+    public ImportJobResponse submit(String importType, InputStream inputStream) {
+        User currentUser = userService.getCurrentUser();
+        Long userId = currentUser.getId();
+
+        String type = importType != null ? importType.toUpperCase() : "";
+        if (!"CHROME".equals(type) && !"EDGE".equals(type) && !"JSON".equals(type)) {
+            throw new RuntimeException("不支持的导入类型: " + importType);
+        }
+
+        Long active = importJobMapper.selectCount(new QueryWrapper<ImportJob>()
+                .eq("user_id", userId)
+                .in("status", ImportJob.STATUS_PENDING, ImportJob.STATUS_RUNNING));
+        if (active > 0) {
+            throw new RuntimeException("已有导入任务正在进行，请等待完成后再导入");
+        }
+
+        Path file;
+        try {
+            Path dir = Paths.get(jobDir);
+            Files.createDirectories(dir);
+            file = dir.resolve(UUID.randomUUID().toString().replace("-", "") + ".upload");
+            Files.copy(inputStream, file);
+        } catch (IOException e) {
+            log.error("保存导入文件失败: userId={}, error={}", userId, e.getMessage(), e);
+            throw new RuntimeException("保存导入文件失败");
+        }
+
+        ImportJob job = new ImportJob();
+        job.setUserId(userId);
+        job.setImportType(type);
+        job.setFilePath(file.toAbsolutePath().toString());
+        job.setStatus(ImportJob.STATUS_PENDING);
+        job.setProcessedCount(0);
+        job.setSuccessCount(0);
+        job.setSkippedCount(0);
+        job.setFailedCount(0);
+        job.setCategoriesCreated(0);
+        job.setOwner(nodeId);
+        job.setHeartbeatTime(LocalDateTime.now());
+        importJobMapper.insert(job);
+
+        if (!schedule(job.getId())) {
+            job.setStatus(ImportJob.STATUS_FAILED);
+            job.setMessage("导入任务繁忙，请稍后重试");
+            importJobMapper.updateById(job);
+            deleteFile(job.getFilePath());
+            throw new RuntimeException("导入任务繁忙，请稍后重试");
+        }
+
+        log.info("提交导入任务: jobId={}, userId={}, type={}", job.getId(), userId, type);
+        return toResponse(job);
+    }
+
+    /**
+     * 查询当前用户的导入任务进度
+     */
+    public ImportJobResponse getJob(Long jobId) {
+        return toResponse(getOwnJob(jobId));
+    }
+
+    /**
+     * 取消当前用户的导入任务（已写入的批次保留）
+     */
+    public void cancel(Long jobId) {
+        ImportJob job = getOwnJob(jobId);
+        if (importJobMapper.cancel(job.getId(), job.getUserId()) == 0) {
+            throw new RuntimeException("导入任务已结束，无法取消");
+        }
+        RunningJob running = localJobs.get(jobId);
+        if (running != null) {
+            running.cancelled = true;
+        }
+        log.info("取消导入任务: jobId={}, userId={}", jobId, job.getUserId());
+    }
+
+    /**
+     * 刷新本节点任务的心跳
+     */
+    @Scheduled(fixedDelay = 30 * 1000)
+    public void heartbeat() {
+        if (localJobs.isEmpty()) {
+            return;
+        }
+        try {
+            importJobMapper.heartbeat(nodeId, new ArrayList<>(localJobs.keySet()));
+        } catch (Exception e) {
+            log.error("刷新导入任务心跳失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 认领心跳超时的未完成任务，从断点继续导入
+     */
+    @Scheduled(initialDelay = 10 * 1000, fixedDelay = 60 * 1000)
+    public void resumeStaleJobs() {
+        try {
+            List<ImportJob> stale = importJobMapper.selectStale(leaseSeconds, RESUME_BATCH);
+            for (ImportJob job : stale) {
+                if (localJobs.containsKey(job.getId())) {
+                    continue;
+                }
+                if (job.getFilePath() == null || !Files.exists(Paths.get(job.getFilePath()))) {
+                    // 暂存文件在其他节点上，留给该节点恢复
+                    continue;
+                }
+                if (!schedule(job.getId())) {
+                    // 线程池已满，下次扫描再试
+                    break;
+                }
+                log.info("恢复导入任务: jobId={}, userId={}, processed={}", job.getId(), job.getUserId(),
+                        job.getProcessedCount());
+            }
+        } catch (Exception e) {
+            log.error("恢复导入任务失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 每天凌晨清理过期的已结束任务及其暂存文件
+     */
+    @Scheduled(cron = "0 40 3 * * ?")
+    public void cleanupFinishedJobs() {
+        try {
+            List<ImportJob> expired = importJobMapper.selectList(new QueryWrapper<ImportJob>()
+                    .select("id", "file_path")
+                    .in("status", ImportJob.STATUS_COMPLETED, ImportJob.STATUS_FAILED, ImportJob.STATUS_CANCELLED)
+                    .lt("create_time", LocalDateTime.now().minusDays(retentionDays)));
+            if (!expired.isEmpty()) {
+                expired.forEach(job -> deleteFile(job.getFilePath()));
+                importJobMapper.deleteByIds(expired.stream().map(ImportJob::getId).toList());
+                log.info("清理过期导入任务: count={}", expired.size());
+            }
+
+            // 超过保留天数仍无节点恢复的任务，暂存文件已丢失；标记为失败，下次清理时删除
+            int abandoned = importJobMapper.failAbandoned(LocalDateTime.now().minusDays(retentionDays),
+                    leaseSeconds, "导入文件已丢失，请重新上传");
+            if (abandoned > 0) {
+                log.warn("导入任务长时间无节点恢复，标记为失败: count={}", abandoned);
+            }
+        } catch (Exception e) {
+            log.error("清理过期导入任务失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean schedule(Long jobId) {
+        RunningJob running = new RunningJob(jobId);
+        if (localJobs.putIfAbsent(jobId, running) != null) {
+            return true;
+        }
+        try {
+            executor.execute(() -> run(running));
+            return true;
+        } catch (RejectedExecutionException e) {
+            localJobs.remove(jobId);
+            log.warn("导入任务线程池已满: jobId={}", jobId);
+            return false;
+        }
+    }
+
+    private void run(RunningJob running) {
+        Long jobId = running.jobId;
+        boolean terminal = true;
+        String filePath = null;
+        try {
+            if (importJobMapper.claim(jobId, nodeId, leaseSeconds) == 0) {
+                // 已取消或已被其他节点认领
+                ImportJob current = importJobMapper.selectById(jobId);
+                terminal = current != null && current.getStatus() == ImportJob.STATUS_CANCELLED;
+                filePath = current != null ? current.getFilePath() : null;
+                return;
+            }
+            ImportJob job = importJobMapper.selectById(jobId);
+            running.base = job;
+            filePath = job.getFilePath();
+
+            Path file = Paths.get(filePath);
+            if (!Files.exists(file)) {
+                // 暂存文件不在本节点，释放认领，由持有文件的节点恢复
+                terminal = false;
+                importJobMapper.release(jobId, nodeId);
+                log.warn("导入暂存文件不在本节点，释放任务: jobId={}, path={}", jobId, filePath);
+                return;
+            }
+
+            ImportResponse response;
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                response = dataManagementService.importData(job.getUserId(), job.getImportType(), reader, running);
+            }
+
+            if (running.lostOwnership) {
+                // 任务已由其他节点接管，保留暂存文件
+                terminal = false;
+                log.warn("导入任务已被其他节点接管: jobId={}", jobId);
+                return;
+            }
+            String message = response.getMessages().isEmpty() ? null : response.getMessages().get(0);
+            if (running.cancelled) {
+                finish(running, response, ImportJob.STATUS_CANCELLED, "导入已取消");
+            } else if (message != null && response.getSuccessCount() == 0 && job.getSuccessCount() == 0) {
+                finish(running, response, ImportJob.STATUS_FAILED, message);
+            } else {
+                finish(running, response, ImportJob.STATUS_COMPLETED, message);
+            }
+        } catch (Exception e) {
+            log.error("导入任务执行失败: jobId={}, error={}", jobId, e.getMessage(), e);
+            try {
+                finish(running, null, ImportJob.STATUS_FAILED, "导入失败: " + e.getMessage());
+            } catch (Exception ex) {
+                // 心跳超时后任务会被重新认领
+                terminal = false;
+                log.error("更新导入任务状态失败: jobId={}, error={}", jobId, ex.getMessage());
+            }
+        } finally {
+            localJobs.remove(jobId);
+            if (terminal && filePath != null) {
+                deleteFile(filePath);
+            }
+        }
+    }
+
+    private void finish(RunningJob running, ImportResponse response, int status, String message) {
+        ImportJob job = running.snapshot(running.processed.get(), response);
+        job.setStatus(status);
+        job.setMessage(message != null && message.length() > 1000 ? message.substring(0, 1000) : message);
+        importJobMapper.finish(job, nodeId);
+        log.info("导入任务结束: jobId={}, status={}, processed={}, success={}, skipped={}, failed={}",
+                job.getId(), STATUS_NAMES[status], job.getProcessedCount(), job.getSuccessCount(),
+                job.getSkippedCount(), job.getFailedCount());
+    }
+
+    private ImportJob getOwnJob(Long jobId) {
+        User currentUser = userService.getCurrentUser();
+        ImportJob job = importJobMapper.selectById(jobId);
+        if (job == null || !job.getUserId().equals(currentUser.getId())) {
+            throw new RuntimeException("导入任务不存在");
+        }
+        return job;
+    }
+
+    private ImportJobResponse toResponse(ImportJob job) {
+        ImportJobResponse response = new ImportJobResponse();
+        response.setJobId(job.getId());
+        response.setStatus(STATUS_NAMES[job.getStatus()]);
+        response.setImportType(job.getImportType());
+        response.setParsedCount(job.getProcessedCount());
+        response.setSuccessCount(job.getSuccessCount());
+        response.setSkippedCount(job.getSkippedCount());
+        response.setFailedCount(job.getFailedCount());
+        response.setCategoriesCreated(job.getCategoriesCreated());
+        response.setMessage(job.getMessage());
+        response.setCreateTime(job.getCreateTime());
+        response.setFinishTime(job.getFinishTime());
+
+        // 本节点执行中的任务使用实时读取条数，统计按批更新
+        RunningJob running = localJobs.get(job.getId());
+        if (running != null && running.base != null) {
+            response.setParsedCount(Math.max(job.getProcessedCount(), running.processed.get()));
+        }
+
+        if (job.getStartTime() != null) {
+            LocalDateTime end = job.getFinishTime() != null ? job.getFinishTime() : LocalDateTime.now();
+            long elapsed = Math.max(Duration.between(job.getStartTime(), end).toMillis(), 1);
+            response.setElapsedMs(elapsed);
+            response.setRowsPerSecond(job.getSuccessCount() * 1000L / elapsed);
+        }
+        return response;
+    }
+
+    private void deleteFile(String filePath) {
+        if (filePath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            log.warn("删除导入暂存文件失败: path={}, error={}", filePath, e.getMessage());
+        }
+    }
+
+    /**
+     * 本节点的一次任务执行，作为断点回调传给导入逻辑
+     */
+    private class RunningJob implements ImportCheckpoint {
+        private final Long jobId;
+
+        /**
+         * 认领时的任务记录，恢复执行时包含上次执行的断点和统计
+         */
+        private volatile ImportJob base;
+
+        private final AtomicInteger processed = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile boolean lostOwnership;
+
+        RunningJob(Long jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public int getResumeFrom() {
+            return base.getProcessedCount();
+        }
+
+        @Override
+        public void onEntry(int processed) {
+            this.processed.set(processed);
+            if (isCancelled()) {
+                throw new CancellationException("导入已取消");
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled || lostOwnership;
+        }
+
+        @Override
+        public void onChunkCommitted(int processed, ImportResponse response) {
+            if (importJobMapper.saveProgress(snapshot(processed, response), nodeId) == 0) {
+                // 已取消（可能由其他节点处理取消请求）或已被其他节点接管，回滚本批
+                ImportJob current = importJobMapper.selectById(jobId);
+                if (current != null && current.getStatus() == ImportJob.STATUS_CANCELLED) {
+                    cancelled = true;
+                } else {
+                    lostOwnership = true;
+                }
+                throw new CancellationException("导入已取消");
+            }
+        }
+
+        /**
+         * 上次执行的统计加上本次执行的统计
+         */
+        ImportJob snapshot(int processed, ImportResponse response) {
+            ImportJob job = new ImportJob();
+            job.setId(jobId);
+            job.setProcessedCount(Math.max(processed, base != null ? base.getProcessedCount() : 0));
+            job.setSuccessCount(base(ImportJob::getSuccessCount) + (response != null ? response.getSuccessCount() : 0));
+            job.setSkippedCount(base(ImportJob::getSkippedCount) + (response != null ? response.getSkippedCount() : 0));
+            job.setFailedCount(base(ImportJob::getFailedCount) + (response != null ? response.getFailedCount() : 0));
+            job.setCategoriesCreated(base(ImportJob::getCategoriesCreated)
+                    + (response != null ? response.getCategoriesCreated() : 0));
+            return job;
+        }
+
+        private int base(Function<ImportJob, Integer> getter) {
+            return base != null && getter.apply(base) != null ? getter.apply(base) : 0;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.bookmark.service;
+
+import com.bookmark.entity.Bookmark;
+import com.bookmark.mapper.BookmarkMapper;
+import com.bookmark.service.LinkHealthCheckService.LinkCheckResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 链接检测执行引擎
+ * - 全局并发上限：固定大小的调度线程池，同时进行的请求数不超过 max-in-flight
+ * - 单域名并发：每次检测任务中同一域名最多 per-host-concurrency 条通道串行请求
+ * - 礼貌间隔：同一域名两次请求的开始时间至少间隔 per-host-delay-ms（所有任务共享），
+ *   等待通过延迟调度实现，不占用线程
+ * - 去重：同一任务中相同 URL 只探测一次；命中共享结果缓存或域名负缓存时不发请求
+ * - 检测结果按批使用 CASE UPDATE 写回
+ * - 应用关闭或超过 run-timeout-minutes 时放弃尚未开始的检测，任务线程不会一直等待
+ */
+@Slf4j
+@Service
+public class LinkCheckEngine {
+
+    @Autowired
+    private BookmarkMapper bookmarkMapper;
+
+    @Autowired
+    private LinkCheckResultCache resultCache;
+
+    @Value("${bookmark.link-check.max-in-flight:32}")
+    private int maxInFlight;
+
+    @Value("${bookmark.link-check.per-host-concurrency:2}")
+    private int perHostConcurrency;
+
+    @Value("${bookmark.link-check.per-host-delay-ms:500}")
+    private long perHostDelayMs;
+
+    @Value("${bookmark.link-check.update-batch-size:200}")
+    private int updateBatchSize;
+
+    @Value("${bookmark.link-check.run-timeout-minutes:360}")
+    private long runTimeoutMinutes;
+
+    /**
+     * 批量写回的最长等待时间，避免检测较慢时结果长时间不落库
+     */
+    private static final long FLUSH_INTERVAL_MS = 5000;
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * 每个域名下一次允许发起请求的时间（毫秒）
+     */
+    private final Map<String, AtomicLong> hostNextSlot = new ConcurrentHashMap<>();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger activeRuns = new AtomicInteger();
+    private final AtomicLong totalChecked = new AtomicLong();
+    private final AtomicLong totalProbes = new AtomicLong();
+    private final AtomicLong totalCacheHits = new AtomicLong();
+    private final AtomicLong totalDead = new AtomicLong();
+    private final AtomicLong totalErrors = new AtomicLong();
+    private volatile RunStats lastRun;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(maxInFlight, r -> {
+            Thread thread = new Thread(r, "link-check-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 检测一批书签并写回结果（阻塞直到全部完成）
+     *
+     * @param name      任务名称（用于日志和统计）
+     * @param bookmarks 待检测书签，至少包含 id 和 url
+     * @param checker   单个链接的检测逻辑
+     * @return 本次运行统计
+     */
+    public RunStats run(String name, List<Bookmark> bookmarks, Function<String, LinkCheckResult> checker) {
+        RunStats stats = new RunStats();
+        stats.setName(name);
+        stats.setTotal(bookmarks.size());
+        stats.setStartTime(LocalDateTime.now());
+        long startMillis = System.currentTimeMillis();
+
+        if (bookmarks.isEmpty()) {
+            stats.setEndTime(LocalDateTime.now());
+            return stats;
+        }
+
+        activeRuns.incrementAndGet();
+        try {
+            // 按规范化 URL 去重，再按域名分组，每个域名启动若干条通道
+            Map<String, List<Bookmark>> urlGroups = new LinkedHashMap<>();
+            for (Bookmark bookmark : bookmarks) {
+                String key = resultCache.normalize(bookmark.getUrl());
+                urlGroups.computeIfAbsent(key != null ? key : "", k -> new ArrayList<>()).add(bookmark);
+            }
+            Map<String, Queue<List<Bookmark>>> hostQueues = new LinkedHashMap<>();
+            urlGroups.forEach((key, group) -> hostQueues
+                    .computeIfAbsent(extractHost(key), k -> new ConcurrentLinkedQueue<>())
+                    .add(group));
+
+            CountDownLatch done = new CountDownLatch(bookmarks.size());
+            LinkedBlockingQueue<Bookmark> results = new LinkedBlockingQueue<>();
+            hostQueues.forEach((host, queue) -> {
+                int lanes = Math.min(perHostConcurrency, queue.size());
+                for (int i = 0; i < lanes; i++) {
+                    if (!dispatch(new HostLane(host, queue, checker, results, done, stats))) {
+                        skipRemaining(queue, done);
+                        break;
+                    }
+                }
+            });
+
+            // 当前线程负责批量写回
+            List<Bookmark> batch = new ArrayList<>();
+            long lastFlush = System.currentTimeMillis();
+            long deadline = startMillis + TimeUnit.MINUTES.toMillis(runTimeoutMinutes);
+            boolean finished = false;
+            while (!finished) {
+                try {
+                    finished = done.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("链接检测任务被中断: name={}", name);
+                    finished = true;
+                }
+                // 应用关闭后排队和延迟中的检测已被丢弃，不会再完成；超时同样放弃剩余检测
+                if (!finished && (executor.isShutdown() || System.currentTimeMillis() >= deadline)) {
+                    log.warn("链接检测任务提前结束: name={}, shutdown={}, checked={}/{}",
+                            name, executor.isShutdown(), stats.getChecked(), stats.getTotal());
+                    hostQueues.values().forEach(queue -> skipRemaining(queue, done));
+                    finished = true;
+                }
+                results.drainTo(batch);
+
+                boolean timeUp = System.currentTimeMillis() - lastFlush >= FLUSH_INTERVAL_MS;
+                if (batch.size() >= updateBatchSize || finished || (timeUp && !batch.isEmpty())) {
+                    flush(batch);
+                    batch.clear();
+                    lastFlush = System.currentTimeMillis();
+                    log.debug("检测进度: name={}, checked={}/{}", name, stats.getChecked(), stats.getTotal());
+                }
+            }
+        } finally {
+            activeRuns.decrementAndGet();
+            // 清理已过期的域名时间槽，避免长期累积
+            long now = System.currentTimeMillis();
+            hostNextSlot.entrySet().removeIf(entry -> entry.getValue().get() < now);
+        }
+
+        long elapsed = Math.max(System.currentTimeMillis() - startMillis, 1);
+        stats.setEndTime(LocalDateTime.now());
+        stats.setElapsedMs(elapsed);
+        stats.setLinksPerHour(stats.getChecked() * 3600_000L / elapsed);
+        lastRun = stats;
+
+        log.info("链接检测完成: name={}, total={}, checked={}, dead={}, errors={}, elapsed={}ms, rate={}/h",
+                name, stats.getTotal(), stats.getChecked(), stats.getDead(), stats.getErrors(),
+                elapsed, stats.getLinksPerHour());
+        return stats;
+    }
+
+    /**
+     * 获取检测引擎运行指标
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new HashMap<>();
+        metrics.put("inFlight", inFlight.get());
+        metrics.put("maxInFlight", maxInFlight);
+        metrics.put("activeRuns", activeRuns.get());
+        metrics.put("totalChecked", totalChecked.get());
+        metrics.put("totalProbes", totalProbes.get());
+        metrics.put("totalCacheHits", totalCacheHits.get());
+        metrics.put("totalDead", totalDead.get());
+        metrics.put("totalErrors", totalErrors.get());
+        metrics.put("lastRun", lastRun);
+        return metrics;
+    }
+
+    private void flush(List<Bookmark> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            bookmarkMapper.batchUpdateLinkStatus(batch);
+        } catch (Exception e) {
+            log.error("批量写回检测结果失败: size={}, error={}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 提交检测任务，线程池已关闭时返回 false
+     */
+    private boolean dispatch(Runnable task) {
+        if (executor.isShutdown()) {
+            return false;
+        }
+        try {
+            executor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 放弃域名队列中尚未开始的书签组（不计入检测结果）
+     */
+    private void skipRemaining(Queue<List<Bookmark>> queue, CountDownLatch done) {
+        List<Bookmark> group;
+        while ((group = queue.poll()) != null) {
+            group.forEach(bookmark -> done.countDown());
+        }
+    }
+
+    /**
+     * 预约域名的下一个请求时间，返回需要等待的毫秒数
+     */
+    private long reserveSlot(String host) {
+        long now = System.currentTimeMillis();
+        AtomicLong next = hostNextSlot.computeIfAbsent(host, k -> new AtomicLong());
+        long slot = next.getAndUpdate(prev -> Math.max(prev, now) + perHostDelayMs);
+        return Math.max(slot, now) - now;
+    }
+
+    private String extractHost(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            if (host != null) {
+                return host.toLowerCase();
+            }
+        } catch (Exception ignored) {
+            // 无法解析的 URL 单独成组
+        }
+        return url == null ? "" : url;
+    }
+
+    /**
+     * 单个域名的一条检测通道：依次从域名队列取同 URL 书签组，按礼貌间隔延迟调度
+     */
+    private class HostLane implements Runnable {
+        private final String host;
+        private final Queue<List<Bookmark>> queue;
+        private final Function<String, LinkCheckResult> checker;
+        private final LinkedBlockingQueue<Bookmark> results;
+        private final CountDownLatch done;
+        private final RunStats stats;
+
+        HostLane(String host, Queue<List<Bookmark>> queue, Function<String, LinkCheckResult> checker,
+                LinkedBlockingQueue<Bookmark> results, CountDownLatch done, RunStats stats) {
+            this.host = host;
+            this.queue = queue;
+            this.checker = checker;
+            this.results = results;
+            this.done = done;
+            this.stats = stats;
+        }
+
+        @Override
+        public void run() {
+            List<Bookmark> group = queue.poll();
+            if (group == null) {
+                return;
+            }
+
+            // 命中缓存（包括同域名不可达）时直接使用结果，不占用域名时间槽
+            LinkCheckResult cached = resultCache.get(group.get(0).getUrl());
+            if (cached != null) {
+                totalCacheHits.addAndGet(group.size());
+                complete(group, cached);
+                return;
+            }
+
+            long wait = reserveSlot(host);
+            if (wait > 0) {
+                try {
+                    executor.schedule(() -> check(group), wait, TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    group.forEach(bookmark -> done.countDown());
+                    skipRemaining(queue, done);
+                }
+            } else {
+                check(group);
+            }
+        }
+
+        private void check(List<Bookmark> group) {
+            LinkCheckResult result;
+            inFlight.incrementAndGet();
+            try {
+                // 等待期间同域名可能已被标记不可达
+                result = resultCache.get(group.get(0).getUrl());
+                if (result == null) {
+                    result = checker.apply(group.get(0).getUrl());
+                    totalProbes.incrementAndGet();
+                }
+            } catch (Exception e) {
+                log.error("检测链接失败: url={}, error={}", group.get(0).getUrl(), e.getMessage());
+                result = null;
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            complete(group, result);
+        }
+
+        /**
+         * 将一次检测结果应用到同 URL 的所有书签，并继续处理该域名的下一组
+         */
+        private void complete(List<Bookmark> group, LinkCheckResult result) {
+            LocalDateTime now = LocalDateTime.now();
+            for (Bookmark bookmark : group) {
+                if (result == null) {
+                    stats.incrementErrors();
+                    totalErrors.incrementAndGet();
+                } else {
+                    bookmark.setLinkStatus(result.getStatus());
+                    bookmark.setCheckMessage(result.getMessage());
+                    bookmark.setLastCheckTime(now);
+                    results.add(bookmark);
+
+                    stats.incrementChecked();
+                    totalChecked.incrementAndGet();
+                    if (result.getStatus() == 2) {
+                        stats.incrementDead();
+                        totalDead.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            }
+            if (!dispatch(this)) {
+                skipRemaining(queue, done);
+            }
+        }
+    }
+
+    /**
+     * 单次检测任务统计
+     */
+    @Data
+    public static class RunStats {
+        private String name;
+        private int total;
+        private volatile int checked;
+        private volatile int dead;
+        private volatile int errors;
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        private long elapsedMs;
+        private long linksPerHour;
+
+        synchronized void incrementChecked() {
+            checked++;
+        }
+
+        synchronized void incrementDead() {
+            dead++;
+        }
+
+        synchronized void incrementErrors() {
+            errors++;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.bookmark.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.bookmark.service.LinkHealthCheckService.LinkCheckResult;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+
+/**
+ * 链接检测结果缓存
+ * - 按规范化 URL 缓存检测结果，多个用户收藏的同一链接在有效期内只探测一次
+ * - 只有确定结果（2xx、3xx、401/403、404/410）使用长有效期；超时、5xx、连接失败等临时失败只短时间复用，
+ *   服务短暂故障恢复后重新检测即可得到新结果
+ * - 域名级负缓存：域名无法解析或连接被拒绝时，整个域名在有效期内直接返回失败结果
+ */
+@Slf4j
+@Service
+public class LinkCheckResultCache {
+
+    @Value("${bookmark.link-check.result-cache.capacity:100000}")
+    private int capacity;
+
+    @Value("${bookmark.link-check.result-cache.ttl-minutes:360}")
+    private long ttlMinutes;
+
+    @Value("${bookmark.link-check.result-cache.transient-ttl-minutes:5}")
+    private long transientTtlMinutes;
+
+    @Value("${bookmark.link-check.host-failure-ttl-minutes:10}")
+    private long hostFailureTtlMinutes;
+
+    private LRUCache<String, LinkCheckResult> urlResults;
+    private LRUCache<String, LinkCheckResult> hostFailures;
+
+    @PostConstruct
+    public void init() {
+        this.urlResults = CacheUtil.newLRUCache(capacity, ttlMinutes * 60 * 1000);
+        this.hostFailures = CacheUtil.newLRUCache(Math.max(capacity / 10, 1000), hostFailureTtlMinutes * 60 * 1000);
+    }
+
+    /**
+     * 获取缓存的检测结果（URL 命中或域名不可达），未命中返回 null
+     */
+    public LinkCheckResult get(String url) {
+        String key = normalize(url);
+        if (key == null) {
+            return null;
+        }
+        LinkCheckResult result = urlResults.get(key, false);
+        if (result != null) {
+            return result;
+        }
+        String host = extractHost(key);
+        return host != null ? hostFailures.get(host, false) : null;
+    }
+
+    /**
+     * 缓存检测结果；域名级失败同时写入域名负缓存
+     */
+    public void put(String url, LinkCheckResult result) {
+        String key = normalize(url);
+        if (key == null || result == null) {
+            return;
+        }
+        if (isDefinitive(result)) {
+            urlResults.put(key, result);
+        } else {
+            urlResults.put(key, result, transientTtlMinutes * 60 * 1000);
+        }
+
+        if (result.isHostUnreachable()) {
+            String host = extractHost(key);
+            if (host != null) {
+                hostFailures.put(host, result);
+                log.debug("域名不可达，加入负缓存: host={}, message={}", host, result.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 是否为确定结果：页面正常、重定向、需要认证/受限（页面存在）或明确不存在
+     */
+    private boolean isDefinitive(LinkCheckResult result) {
+        int code = result.getHttpCode();
+        return (code >= 200 && code < 400) || code == 401 || code == 403 || code == 404 || code == 410;
+    }
+
+    /**
+     * 规范化 URL 作为缓存 key：补全协议、协议和域名小写、去掉锚点和末尾斜杠
+     */
+    public String normalize(String url) {
+        if (url == null || url.trim().isEmpty()) {
+            return null;
+        }
+        String value = url.trim();
+        if (!value.startsWith("http://") && !value.startsWith("https://")) {
+            value = "https://" + value;
+        }
+        int hashIndex = value.indexOf('#');
+        if (hashIndex >= 0) {
+            value = value.substring(0, hashIndex);
+        }
+        try {
+            URI uri = URI.create(value);
+            if (uri.getHost() != null) {
+                String prefix = uri.getScheme().toLowerCase() + "://" + uri.getRawAuthority().toLowerCase();
+                value = prefix + value.substring(value.indexOf(uri.getRawAuthority()) + uri.getRawAuthority().length());
+            }
+        } catch (Exception ignored) {
+            // 无法解析的 URL 按原样作为 key
+        }
+        while (value.endsWith("/") && value.indexOf("://") + 3 < value.length() - 1) {
+            value = value.substring(0, value.length() - 1);
+        }
+        return value;
+    }
+
+    private String extractHost(String normalizedUrl) {
+        try {
+            String host = URI.create(normalizedUrl).getHost();
+            return host != null ? host.toLowerCase() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
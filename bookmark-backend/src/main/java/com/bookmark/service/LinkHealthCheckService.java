@@ -5,9 +5,11 @@ import cn.hutool.http.HttpResponse;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.bookmark.entity.Bookmark;
 import com.bookmark.mapper.BookmarkMapper;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -24,13 +26,18 @@ import java.util.List;
 public class LinkHealthCheckService {
 
     private final BookmarkMapper bookmarkMapper;
+    private final LinkCheckEngine linkCheckEngine;
+    private final LinkCheckResultCache linkCheckResultCache;
 
     private static final int TIMEOUT = 10000; // 10秒超时（增加到10秒）
-    private static final int BATCH_SIZE = 50; // 每批检测数量
-    private static final int REQUEST_INTERVAL = 300; // 请求间隔（毫秒）
+    private static final int PAGE_SIZE = 5000; // 每日检测每次加载的书签数
+
+    @Value("${bookmark.link-check.daily-limit:50000}")
+    private int dailyLimit; // 每日检测上限
 
     /**
      * 检测单个链接状态（改进版）
+     * 总是发起真实请求，结果写入共享缓存
      * 
      * @return LinkCheckResult
      */
@@ -56,6 +63,8 @@ public class LinkHealthCheckService {
                 }
             }
 
+            // 写入共享缓存，供批量检测复用
+            linkCheckResultCache.put(url, result);
             return result;
         } catch (Exception e) {
             String errorMsg = truncateMessage("检测异常: " + e.getMessage(), 200);
@@ -104,9 +113,9 @@ public class LinkHealthCheckService {
             if (msg != null && msg.contains("timeout")) {
                 return new LinkCheckResult(4, "连接超时", 0);
             } else if (msg != null && msg.contains("Connection refused")) {
-                return new LinkCheckResult(2, "连接被拒绝", 0);
+                return hostUnreachable(new LinkCheckResult(2, "连接被拒绝", 0));
             } else if (msg != null && msg.contains("UnknownHost")) {
-                return new LinkCheckResult(2, "域名无法解析", 0);
+                return hostUnreachable(new LinkCheckResult(2, "域名无法解析", 0));
             } else if (msg != null && msg.contains("SSLHandshake")) {
                 return new LinkCheckResult(4, "SSL证书错误", 0);
             }
@@ -116,6 +125,11 @@ public class LinkHealthCheckService {
         }
     }
 
+    private LinkCheckResult hostUnreachable(LinkCheckResult result) {
+        result.setHostUnreachable(true);
+        return result;
+    }
+
     /**
      * 规范化 URL
      */
@@ -147,86 +161,53 @@ public class LinkHealthCheckService {
 
         List<Bookmark> bookmarks = bookmarkMapper.selectList(
                 new QueryWrapper<Bookmark>()
+                        .select("id", "url")
                         .eq("user_id", userId)
                         .eq("status", 1));
 
         log.info("用户书签总数: userId={}, total={}", userId, bookmarks.size());
 
-        int checked = 0;
-        int errors = 0;
-        int deadLinks = 0;
-
-        for (Bookmark bookmark : bookmarks) {
-            try {
-                LinkCheckResult result = checkLink(bookmark.getUrl());
-                bookmark.setLinkStatus(result.getStatus());
-                bookmark.setCheckMessage(result.getMessage());
-                bookmark.setLastCheckTime(LocalDateTime.now());
-                bookmarkMapper.updateById(bookmark);
-                checked++;
-
-                if (result.getStatus() == 2) {
-                    deadLinks++;
-                }
-
-                // 每检测10个输出一次进度
-                if (checked % 10 == 0) {
-                    log.info("检测进度: userId={}, checked={}/{}", userId, checked, bookmarks.size());
-                }
-
-                // 避免请求过快
-                Thread.sleep(REQUEST_INTERVAL);
-            } catch (Exception e) {
-                errors++;
-                log.error("检测书签失败: bookmarkId={}, error={}", bookmark.getId(), e.getMessage());
-            }
-        }
+        LinkCheckEngine.RunStats stats = linkCheckEngine.run("user:" + userId, bookmarks, this::checkLink);
 
         log.info("用户书签检测完成: userId={}, checked={}, deadLinks={}, errors={}",
-                userId, checked, deadLinks, errors);
+                userId, stats.getChecked(), stats.getDead(), stats.getErrors());
     }
 
     /**
      * 定时任务：每天凌晨3点检测超过7天未检测的书签
+     * 按主键分页加载，交给检测引擎并发执行；异步运行避免占用调度线程
      */
+    @Async
     @Scheduled(cron = "0 0 3 * * ?")
     public void dailyHealthCheck() {
         log.info("开始每日链接健康检查...");
 
         LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
 
-        // 查找需要检测的书签（未检测过或检测时间超过7天）
-        List<Bookmark> bookmarks = bookmarkMapper.selectList(
-                new QueryWrapper<Bookmark>()
-                        .eq("status", 1)
-                        .and(w -> w.isNull("last_check_time")
-                                .or().lt("last_check_time", sevenDaysAgo))
-                        .last("LIMIT " + BATCH_SIZE * 10) // 每次最多检测500个
-        );
-
-        log.info("待检测书签数量: {}", bookmarks.size());
-
         int checked = 0;
         int deadLinks = 0;
-
-        for (Bookmark bookmark : bookmarks) {
-            try {
-                LinkCheckResult result = checkLink(bookmark.getUrl());
-                bookmark.setLinkStatus(result.getStatus());
-                bookmark.setCheckMessage(result.getMessage());
-                bookmark.setLastCheckTime(LocalDateTime.now());
-                bookmarkMapper.updateById(bookmark);
-
-                if (result.getStatus() == 2) {
-                    deadLinks++;
-                }
-                checked++;
-
-                // 避免请求过快
-                Thread.sleep(REQUEST_INTERVAL);
-            } catch (Exception e) {
-                log.error("检测书签失败: bookmarkId={}", bookmark.getId(), e);
+        long lastId = 0;
+
+        while (checked < dailyLimit) {
+            // 查找需要检测的书签（未检测过或检测时间超过7天）
+            List<Bookmark> bookmarks = bookmarkMapper.selectList(
+                    new QueryWrapper<Bookmark>()
+                            .select("id", "url")
+                            .eq("status", 1)
+                            .gt("id", lastId)
+                            .and(w -> w.isNull("last_check_time")
+                                    .or().lt("last_check_time", sevenDaysAgo))
+                            .orderByAsc("id")
+                            .last("LIMIT " + Math.min(PAGE_SIZE, dailyLimit - checked)));
+
+            if (bookmarks.isEmpty()) {
+                break;
             }
+            lastId = bookmarks.get(bookmarks.size() - 1).getId();
+
+            LinkCheckEngine.RunStats stats = linkCheckEngine.run("daily", bookmarks, this::checkLink);
+            checked += bookmarks.size();
+            deadLinks += stats.getDead();
         }
 
         log.info("每日链接健康检查完成: 检测={}, 失效={}", checked, deadLinks);
@@ -248,6 +229,8 @@ public class LinkHealthCheckService {
         private int status; // 1-正常 2-失效 3-重定向 4-超时
         private String message;
         private int httpCode;
+        @JsonIgnore
+        private boolean hostUnreachable; // 域名级失败（无法解析/连接被拒绝），同域名其他链接可直接复用
 
         public LinkCheckResult(int status, String message, int httpCode) {
             this.status = status;
@@ -0,0 +1,166 @@
+package com.bookmark.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户在线状态服务
+ * - presence:online         有序集合，member 为用户ID，score 为最近心跳时间戳（毫秒）
+ * - presence:dau:{yyyyMMdd} 每日 HyperLogLog，用于统计日活/周活
+ * 认证过滤器每次请求调用 heartbeat，本地节流后最多每个心跳间隔写一次 Redis
+ */
+@Slf4j
+@Service
+public class PresenceService {
+
+    private static final String ONLINE_KEY = "presence:online";
+    private static final String DAILY_ACTIVE_PREFIX = "presence:dau:";
+
+    /**
+     * 旧版在线用户有序集合（已由 presence:online 替代），没有过期时间，启动时删除
+     */
+    private static final String LEGACY_ONLINE_KEY = "online:users";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    /**
+     * 日活 HyperLogLog 保留天数（需覆盖周活统计窗口）
+     */
+    private static final long DAILY_ACTIVE_KEEP_DAYS = 8;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${bookmark.presence.online-window-minutes:5}")
+    private long onlineWindowMinutes;
+
+    @Value("${bookmark.presence.heartbeat-interval-seconds:60}")
+    private long heartbeatIntervalSeconds;
+
+    @Value("${bookmark.presence.local-capacity:10000}")
+    private int localCapacity;
+
+    /**
+     * 本地心跳节流：间隔内已上报过的用户不再写 Redis
+     */
+    private LRUCache<Long, Boolean> recentHeartbeats;
+
+    @PostConstruct
+    public void init() {
+        this.recentHeartbeats = CacheUtil.newLRUCache(localCapacity, heartbeatIntervalSeconds * 1000);
+        removeLegacyKey();
+    }
+
+    private void removeLegacyKey() {
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.delete(LEGACY_ONLINE_KEY))) {
+                log.info("已删除旧版在线用户集合: {}", LEGACY_ONLINE_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("删除旧版在线用户集合失败: error={}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录用户心跳
+     */
+    public void heartbeat(Long userId) {
+        if (userId == null || recentHeartbeats.get(userId, false) != null) {
+            return;
+        }
+        recentHeartbeats.put(userId, Boolean.TRUE);
+
+        try {
+            String member = String.valueOf(userId);
+            String dailyKey = DAILY_ACTIVE_PREFIX + LocalDate.now().format(DAY_FORMAT);
+            redisTemplate.opsForZSet().add(ONLINE_KEY, member, System.currentTimeMillis());
+            redisTemplate.opsForHyperLogLog().add(dailyKey, member);
+            redisTemplate.expire(dailyKey, DAILY_ACTIVE_KEEP_DAYS, TimeUnit.DAYS);
+        } catch (Exception e) {
+            log.warn("记录用户心跳失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 移除用户在线状态（注销所有 Token 时调用）
+     */
+    public void markOffline(Long userId) {
+        recentHeartbeats.remove(userId);
+        try {
+            redisTemplate.opsForZSet().remove(ONLINE_KEY, String.valueOf(userId));
+        } catch (Exception e) {
+            log.warn("移除在线状态失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 当前在线用户数：在线窗口内有心跳的用户，ZCOUNT O(log n)
+     */
+    public long getOnlineUserCount() {
+        try {
+            long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(onlineWindowMinutes);
+            Long count = redisTemplate.opsForZSet().count(ONLINE_KEY, cutoff, Double.POSITIVE_INFINITY);
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            log.error("获取在线用户数失败: {}", e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 今日活跃用户数（HyperLogLog 估算，误差约 0.81%）
+     */
+    public long getDailyActiveUsers() {
+        return countActiveUsers(1);
+    }
+
+    /**
+     * 最近7天活跃用户数（多个日 HyperLogLog 合并估算）
+     */
+    public long getWeeklyActiveUsers() {
+        return countActiveUsers(7);
+    }
+
+    private long countActiveUsers(int days) {
+        try {
+            List<String> keys = new ArrayList<>(days);
+            LocalDate today = LocalDate.now();
+            for (int i = 0; i < days; i++) {
+                keys.add(DAILY_ACTIVE_PREFIX + today.minusDays(i).format(DAY_FORMAT));
+            }
+            Long count = redisTemplate.opsForHyperLogLog().size(keys.toArray(new String[0]));
+            return count != null ? count : 0;
+        } catch (Exception e) {
+            log.error("获取活跃用户数失败: days={}, error={}", days, e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 定时裁剪超出在线窗口的成员，保证有序集合大小只与在线人数相关
+     */
+    @Scheduled(fixedRate = 60 * 1000)
+    public void trimOfflineUsers() {
+        try {
+            long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(onlineWindowMinutes);
+            Long removed = redisTemplate.opsForZSet().removeRangeByScore(ONLINE_KEY, 0, cutoff);
+            if (removed != null && removed > 0) {
+                log.debug("已清理离线用户 {} 个", removed);
+            }
+        } catch (Exception e) {
+            log.error("清理离线用户失败: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.bookmark.service;
+
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
+
+/**
+ * 书签搜索引擎
+ * 实现: Elasticsearch（主）、MySQL FULLTEXT ngram（降级），由 SearchEngineRouter 按熔断状态路由
+ */
+public interface SearchEngine {
+
+    /**
+     * 引擎名称
+     */
+    String getName();
+
+    /**
+     * 分页搜索书签（用户隔离），失败时抛出异常，由路由决定是否降级
+     */
+    SearchResponse search(Long userId, SearchRequest request);
+}
@@ -0,0 +1,105 @@
+package com.bookmark.service;
+
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
+import com.bookmark.service.impl.ElasticsearchSearchEngine;
+import com.bookmark.service.impl.LocalSearchEngine;
+import com.bookmark.service.impl.MysqlSearchEngine;
+import com.bookmark.util.CircuitBreaker;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 搜索引擎路由
+ * - 书签数较少的用户使用进程内索引，不经过网络
+ * - 默认使用 Elasticsearch；连续失败达到阈值后熔断，期间直接走 MySQL 全文搜索
+ * - 冷却时间后放行一个探测请求，成功则切回 Elasticsearch
+ * - 单次 ES 请求失败时当次请求也降级到 MySQL，搜索变慢但结果不为空
+ * - MySQL 游标的翻页请求继续由 MySQL 处理，保证同一次翻页结果一致
+ */
+@Slf4j
+@Service
+@Primary
+public class SearchEngineRouter implements SearchEngine {
+
+    @Autowired
+    private ElasticsearchSearchEngine elasticsearchEngine;
+
+    @Autowired
+    private MysqlSearchEngine mysqlEngine;
+
+    @Autowired
+    private LocalSearchEngine localEngine;
+
+    @Value("${bookmark.search.breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${bookmark.search.breaker.open-seconds:30}")
+    private long openSeconds;
+
+    private CircuitBreaker breaker;
+
+    @PostConstruct
+    public void init() {
+        this.breaker = new CircuitBreaker(elasticsearchEngine.getName(), failureThreshold, openSeconds * 1000);
+    }
+
+    @Override
+    public String getName() {
+        return breaker.getState() == CircuitBreaker.State.CLOSED ? elasticsearchEngine.getName() : mysqlEngine.getName();
+    }
+
+    @Override
+    public SearchResponse search(Long userId, SearchRequest request) {
+        if (mysqlEngine.isOwnCursor(request.getCursor())) {
+            return mysqlEngine.search(userId, request);
+        }
+        if (localEngine.isOwnCursor(request.getCursor())) {
+            return localEngine.search(userId, request);
+        }
+
+        if (request.getCursor() == null && localEngine.canServe(userId)) {
+            try {
+                return localEngine.search(userId, request);
+            } catch (IllegalArgumentException e) {
+                throw e;
+            } catch (Exception e) {
+                log.warn("本地索引搜索失败，改用 ES: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+
+        if (breaker.tryAcquire()) {
+            try {
+                SearchResponse response = elasticsearchEngine.search(userId, request);
+                breaker.recordSuccess();
+                return response;
+            } catch (IllegalArgumentException e) {
+                // 请求参数错误，与 ES 可用性无关
+                breaker.recordIgnored();
+                throw e;
+            } catch (Exception e) {
+                breaker.recordFailure();
+                log.warn("ES 搜索失败，降级到 MySQL 全文搜索: userId={}, error={}", userId, e.getMessage());
+            }
+        }
+        return mysqlEngine.search(userId, request);
+    }
+
+    /**
+     * 获取路由状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("activeEngine", getName());
+        status.put("breaker", breaker.getStats());
+        status.put("local", localEngine.getStats());
+        return status;
+    }
+}
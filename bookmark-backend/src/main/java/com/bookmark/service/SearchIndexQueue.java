@@ -0,0 +1,333 @@
+package com.bookmark.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.entity.Bookmark;
+import com.bookmark.entity.BookmarkDocument;
+import com.bookmark.entity.SearchIndexOutbox;
+import com.bookmark.mapper.BookmarkMapper;
+import com.bookmark.mapper.BookmarkSearchRepository;
+import com.bookmark.mapper.SearchIndexOutboxMapper;
+import com.bookmark.service.impl.LocalSearchEngine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 搜索索引异步队列
+ * - 书签变更只提交书签ID，接口在 MySQL 写入后立即返回
+ * - 队列中同一ID只保留一份，多次修改合并为一次索引
+ * - 后台线程按批读取书签最新状态：正常的 bulk 写入，已删除或不存在的从 ES 删除
+ * - ES 失败时指数退避重试，仍失败或队列已满时写入 MySQL 发件箱，定时取回重试
+ */
+@Slf4j
+@Service
+public class SearchIndexQueue {
+
+    @Autowired
+    private BookmarkMapper bookmarkMapper;
+
+    @Autowired
+    private BookmarkSearchRepository searchRepository;
+
+    @Autowired
+    private SearchIndexOutboxMapper outboxMapper;
+
+    @Autowired
+    private SearchSuggestService suggestService;
+
+    @Autowired
+    private LocalSearchEngine localSearchEngine;
+
+    @Value("${bookmark.search.queue.capacity:10000}")
+    private int capacity;
+
+    @Value("${bookmark.search.queue.batch-size:200}")
+    private int batchSize;
+
+    @Value("${bookmark.search.queue.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${bookmark.search.queue.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    private LinkedBlockingQueue<Long> queue;
+
+    /**
+     * 已在队列中的ID，用于合并重复事件
+     */
+    private final Set<Long> pendingIds = ConcurrentHashMap.newKeySet();
+
+    private Thread worker;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.running = true;
+        this.worker = new Thread(this::processLoop, "search-index-queue");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 提交书签索引事件
+     * 处于事务中时在提交后入队，避免后台线程读到未提交的数据
+     */
+    public void enqueue(Long bookmarkId) {
+        if (bookmarkId == null) {
+            return;
+        }
+        enqueueAll(Collections.singletonList(bookmarkId));
+    }
+
+    /**
+     * 批量提交书签索引事件
+     */
+    public void enqueueAll(Collection<Long> bookmarkIds) {
+        if (bookmarkIds == null || bookmarkIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(bookmarkIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offerAll(ids);
+                }
+            });
+        } else {
+            offerAll(ids);
+        }
+    }
+
+    /**
+     * 直接用一次 bulk 请求索引一批刚写入的书签（调用方已持有完整数据，无需回查数据库）
+     * 处于事务中时在提交后执行；bulk 失败时退回队列，由队列重试和发件箱兜底
+     */
+    public void indexBatch(Collection<Bookmark> bookmarks) {
+        if (bookmarks == null || bookmarks.isEmpty()) {
+            return;
+        }
+        List<Bookmark> batch = new ArrayList<>(bookmarks);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bulkIndex(batch);
+                }
+            });
+        } else {
+            bulkIndex(batch);
+        }
+    }
+
+    private void bulkIndex(List<Bookmark> bookmarks) {
+        // 本地索引先更新，ES 不可用时降级搜索仍能看到新书签
+        updateLocalIndex(bookmarks, Collections.emptyList());
+        try {
+            searchRepository.saveAll(bookmarks.stream()
+                    .map(BookmarkDocument::fromBookmark)
+                    .collect(Collectors.toList()));
+            suggestService.invalidate(bookmarks.stream().map(Bookmark::getUserId).collect(Collectors.toSet()));
+            log.debug("批量索引书签完成: count={}", bookmarks.size());
+        } catch (Exception e) {
+            log.warn("批量索引书签失败，转入索引队列重试: count={}, error={}", bookmarks.size(), e.getMessage());
+            offerAll(bookmarks.stream().map(Bookmark::getId).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * 获取队列状态
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", capacity);
+        stats.put("outbox", outboxMapper.selectCount(null));
+        return stats;
+    }
+
+    private void offerAll(List<Long> ids) {
+        List<Long> overflow = new ArrayList<>();
+        for (Long id : ids) {
+            if (!pendingIds.add(id)) {
+                // 已在队列中，合并
+                continue;
+            }
+            if (!queue.offer(id)) {
+                pendingIds.remove(id);
+                overflow.add(id);
+            }
+        }
+        if (!overflow.isEmpty()) {
+            log.warn("索引队列已满，写入发件箱: count={}", overflow.size());
+            saveToOutbox(overflow);
+        }
+    }
+
+    private void processLoop() {
+        while (running) {
+            try {
+                Long first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Long> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                // 先移出合并集合再读取数据库，读取之后的新修改会重新入队
+                batch.forEach(pendingIds::remove);
+
+                flushWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("索引队列处理异常: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 写入 ES，失败时指数退避重试；退避等待期间被中断（应用关闭）时本批写入发件箱并保留中断标记
+     */
+    private void flushWithRetry(List<Long> ids) {
+        long backoff = retryBackoffMs;
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            try {
+                flush(ids);
+                return;
+            } catch (Exception e) {
+                if (attempt == maxRetries || !running) {
+                    log.error("同步书签到 ES 失败，写入发件箱: count={}, error={}", ids.size(), e.getMessage());
+                    saveToOutbox(ids);
+                    return;
+                }
+                log.warn("同步书签到 ES 失败，{}ms 后重试: attempt={}, error={}", backoff, attempt + 1, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    saveToOutbox(ids);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    /**
+     * 按书签最新状态写入或删除，每批一次 bulk 写入和一次批量删除
+     */
+    private void flush(List<Long> ids) {
+        List<Bookmark> bookmarks = bookmarkMapper.selectByIdsIncludingDeleted(ids);
+        Map<Long, Bookmark> byId = bookmarks.stream().collect(Collectors.toMap(Bookmark::getId, b -> b));
+
+        List<BookmarkDocument> toIndex = new ArrayList<>();
+        List<Long> toDelete = new ArrayList<>();
+        for (Long id : ids) {
+            Bookmark bookmark = byId.get(id);
+            if (bookmark != null && Integer.valueOf(1).equals(bookmark.getStatus())) {
+                toIndex.add(BookmarkDocument.fromBookmark(bookmark));
+            } else {
+                toDelete.add(id);
+            }
+        }
+
+        // 已缓存的本地索引先增量更新，不依赖 ES 写入结果（ES 故障期间由本地索引提供搜索）
+        updateLocalIndex(bookmarks, ids.stream()
+                .filter(id -> !byId.containsKey(id))
+                .collect(Collectors.toList()));
+
+        if (!toIndex.isEmpty()) {
+            searchRepository.saveAll(toIndex);
+        }
+        if (!toDelete.isEmpty()) {
+            searchRepository.deleteAllById(toDelete);
+        }
+        // 书签变化后该用户缓存的联想结果失效
+        suggestService.invalidate(bookmarks.stream().map(Bookmark::getUserId).collect(Collectors.toSet()));
+        log.debug("索引队列批量同步完成: indexed={}, deleted={}", toIndex.size(), toDelete.size());
+    }
+
+    private void updateLocalIndex(Collection<Bookmark> bookmarks, Collection<Long> missingIds) {
+        try {
+            localSearchEngine.onBookmarksChanged(bookmarks, missingIds);
+        } catch (Exception e) {
+            log.error("更新本地搜索索引失败: count={}, error={}", bookmarks.size(), e.getMessage(), e);
+        }
+    }
+
+    private void saveToOutbox(List<Long> ids) {
+        try {
+            outboxMapper.insertBatch(ids);
+        } catch (Exception e) {
+            // 最后的兜底是 ElasticsearchSyncTask 的增量同步
+            log.error("写入索引发件箱失败，等待增量同步补偿: count={}, error={}", ids.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * 定时从发件箱取回事件重新入队
+     */
+    @Scheduled(fixedDelay = 30 * 1000)
+    public void drainOutbox() {
+        try {
+            int room = queue.remainingCapacity();
+            if (room <= 0) {
+                return;
+            }
+            List<SearchIndexOutbox> rows = outboxMapper.selectList(new QueryWrapper<SearchIndexOutbox>()
+                    .orderByAsc("id")
+                    .last("LIMIT " + Math.min(room, batchSize * 5)));
+            if (rows.isEmpty()) {
+                return;
+            }
+
+            outboxMapper.deleteByIds(rows.stream().map(SearchIndexOutbox::getId).collect(Collectors.toList()));
+            offerAll(rows.stream().map(SearchIndexOutbox::getBookmarkId).distinct().collect(Collectors.toList()));
+            log.info("从索引发件箱取回 {} 条事件", rows.size());
+        } catch (Exception e) {
+            log.error("处理索引发件箱失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 应用关闭时把队列中剩余的事件写入发件箱
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        worker.interrupt();
+        try {
+            // 等待正在处理的批次写入 ES 或发件箱，之后再取出队列剩余事件
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Long> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            saveToOutbox(remaining);
+            log.info("应用关闭，{} 条索引事件已写入发件箱", remaining.size());
+        }
+    }
+}
@@ -1,25 +1,48 @@
 package com.bookmark.service;
 
+import cn.hutool.json.JSONUtil;
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
 import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.BookmarkDocument;
 import com.bookmark.mapper.BookmarkSearchRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregation;
+import org.springframework.data.elasticsearch.client.elc.ElasticsearchAggregations;
 import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
 import org.springframework.data.elasticsearch.core.SearchHit;
 import org.springframework.data.elasticsearch.core.SearchHits;
+import org.springframework.data.elasticsearch.core.query.HighlightQuery;
+import org.springframework.data.elasticsearch.core.query.highlight.Highlight;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightField;
+import org.springframework.data.elasticsearch.core.query.highlight.HighlightParameters;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
+import co.elastic.clients.elasticsearch._types.SortOptions;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.LongTermsBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
 import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MatchQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
-import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch._types.query_dsl.RangeQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
 import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.json.JsonData;
 import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.client.elc.NativeQueryBuilder;
 
 /**
  * 搜索服务
@@ -32,6 +55,15 @@ public class SearchService {
     private final BookmarkSearchRepository searchRepository;
     private final ElasticsearchOperations elasticsearchOperations;
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int HIGHLIGHT_FRAGMENT_SIZE = 100;
+    private static final int HIGHLIGHT_FRAGMENTS = 3;
+    private static final int CATEGORY_AGG_SIZE = 100;
+    private static final int DOMAIN_AGG_SIZE = 20;
+    private static final String AGG_CATEGORY = "by_category";
+    private static final String AGG_DOMAIN = "by_domain";
+
     /**
      * 同步书签到 Elasticsearch
      */
@@ -58,57 +90,161 @@ public class SearchService {
     }
 
     /**
-     * 搜索书签（用户隔离）
+     * 分页搜索书签（用户隔离）
+     * - 一次请求返回当前页、高亮片段、命中总数以及按分类/域名的聚合
+     * - 使用 search_after 游标翻页，深翻页不需要跳过前面的结果
+     * - URL 片段通过 url.ngram 子字段匹配，不使用前导通配符
      */
-    public List<BookmarkDocument> search(Long userId, String keyword) {
-        if (keyword == null || keyword.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
+    public SearchResponse search(Long userId, SearchRequest request) {
+        int size = request.getSize() == null ? DEFAULT_PAGE_SIZE
+                : Math.max(1, Math.min(request.getSize(), MAX_PAGE_SIZE));
+        String keyword = request.getKeyword() == null ? "" : request.getKeyword().trim();
 
-        try {
-            String searchText = keyword.trim();
-            String wildcardPattern = "*" + searchText.toLowerCase() + "*";
+        BoolQuery.Builder bool = new BoolQuery.Builder();
 
-            // 构建原生 Elasticsearch 查询
-            // 1. 用户ID必须匹配（term query）
-            Query userQuery = TermQuery.of(t -> t.field("userId").value(userId))._toQuery();
+        // 1. 过滤条件（filter 不参与打分，可被 ES 缓存）
+        bool.filter(TermQuery.of(t -> t.field("userId").value(userId))._toQuery());
+        if (request.getCategoryId() != null) {
+            bool.filter(TermQuery.of(t -> t.field("categoryId").value(request.getCategoryId()))._toQuery());
+        }
+        if (request.getIsFavorite() != null) {
+            bool.filter(TermQuery.of(t -> t.field("isFavorite").value(request.getIsFavorite()))._toQuery());
+        }
+        if (request.getStartDate() != null || request.getEndDate() != null) {
+            bool.filter(RangeQuery.of(r -> {
+                r.field("createTime");
+                if (request.getStartDate() != null) {
+                    r.gte(JsonData.of(request.getStartDate().toString()));
+                }
+                if (request.getEndDate() != null) {
+                    r.lt(JsonData.of(request.getEndDate().plusDays(1).toString()));
+                }
+                return r;
+            })._toQuery());
+        }
 
-            // 2. 标题/描述/标签使用 multi_match 查询
-            Query textQuery = MultiMatchQuery.of(m -> m
-                    .query(searchText)
+        // 2. 关键词：标题/描述/标签 multi_match，或 URL n-gram 匹配
+        if (!keyword.isEmpty()) {
+            bool.should(MultiMatchQuery.of(m -> m
+                    .query(keyword)
                     .fields("title^3", "description", "tags")
                     .type(TextQueryType.BestFields)
-                    .fuzziness("AUTO"))._toQuery();
+                    .fuzziness("AUTO"))._toQuery());
+            bool.should(MatchQuery.of(m -> m
+                    .field("url.ngram")
+                    .query(keyword)
+                    .operator(Operator.And))._toQuery());
+            bool.minimumShouldMatch("1");
+        }
 
-            // 3. URL 使用 wildcard 查询（支持部分匹配）
-            Query urlQuery = co.elastic.clients.elasticsearch._types.query_dsl.WildcardQuery.of(w -> w
-                    .field("url")
-                    .value(wildcardPattern)
-                    .caseInsensitive(true))._toQuery();
+        // 3. 排序：有关键词按相关度，否则按创建时间；id 作为唯一的决胜字段保证游标稳定
+        List<SortOptions> sorts = new ArrayList<>();
+        if (!keyword.isEmpty()) {
+            sorts.add(SortOptions.of(o -> o.score(sc -> sc.order(SortOrder.Desc))));
+        } else {
+            sorts.add(SortOptions.of(o -> o.field(f -> f.field("createTime").order(SortOrder.Desc))));
+        }
+        sorts.add(SortOptions.of(o -> o.field(f -> f.field("id").order(SortOrder.Desc))));
 
-            // 4. 文本查询或URL查询任一匹配即可（should）
-            Query searchQuery = BoolQuery.of(b -> b
-                    .should(textQuery)
-                    .should(urlQuery)
-                    .minimumShouldMatch("1"))._toQuery();
+        // 高亮片段为 HTML，书签文本（可能来自导入的第三方文件）需转义，仅保留 <em> 标记
+        HighlightParameters highlightParameters = HighlightParameters.builder()
+                .withEncoder("html")
+                .withPreTags("<em>")
+                .withPostTags("</em>")
+                .withFragmentSize(HIGHLIGHT_FRAGMENT_SIZE)
+                .withNumberOfFragments(HIGHLIGHT_FRAGMENTS)
+                .build();
+        Highlight highlight = new Highlight(highlightParameters, List.of(
+                new HighlightField("title"),
+                new HighlightField("description"),
+                new HighlightField("tags")));
 
-            // 5. 最终查询：用户必须匹配 AND 搜索条件匹配
-            Query boolQuery = BoolQuery.of(b -> b
-                    .must(userQuery)
-                    .must(searchQuery))._toQuery();
+        NativeQueryBuilder builder = NativeQuery.builder()
+                .withQuery(bool.build()._toQuery())
+                .withSort(sorts)
+                .withPageable(PageRequest.of(0, size))
+                .withTrackTotalHits(true)
+                .withHighlightQuery(new HighlightQuery(highlight, BookmarkDocument.class))
+                .withAggregation(AGG_CATEGORY, Aggregation.of(a -> a
+                        .terms(t -> t.field("categoryId").size(CATEGORY_AGG_SIZE))))
+                .withAggregation(AGG_DOMAIN, Aggregation.of(a -> a
+                        .terms(t -> t.field("domain").size(DOMAIN_AGG_SIZE))));
+        List<Object> searchAfter = decodeCursor(request.getCursor());
+        if (searchAfter != null) {
+            builder.withSearchAfter(searchAfter);
+        }
 
-            NativeQuery query = NativeQuery.builder()
-                    .withQuery(boolQuery)
-                    .build();
+        SearchHits<BookmarkDocument> searchHits = elasticsearchOperations.search(builder.build(), BookmarkDocument.class);
 
-            SearchHits<BookmarkDocument> searchHits = elasticsearchOperations.search(query, BookmarkDocument.class);
+        SearchResponse response = new SearchResponse();
+        response.setTotal(searchHits.getTotalHits());
+        for (SearchHit<BookmarkDocument> hit : searchHits.getSearchHits()) {
+            SearchResponse.Item item = new SearchResponse.Item();
+            item.setBookmark(hit.getContent());
+            item.setHighlights(hit.getHighlightFields());
+            item.setScore(Float.isNaN(hit.getScore()) ? null : hit.getScore());
+            response.getItems().add(item);
+        }
+        if (searchHits.getSearchHits().size() == size) {
+            response.setNextCursor(encodeCursor(
+                    searchHits.getSearchHits().get(searchHits.getSearchHits().size() - 1).getSortValues()));
+        }
+        readAggregations(searchHits, response);
+        return response;
+    }
 
-            return searchHits.getSearchHits().stream()
-                    .map(SearchHit::getContent)
-                    .collect(Collectors.toList());
+    private void readAggregations(SearchHits<BookmarkDocument> searchHits, SearchResponse response) {
+        if (!(searchHits.getAggregations() instanceof ElasticsearchAggregations aggregations)) {
+            return;
+        }
+        Map<String, ElasticsearchAggregation> aggs = aggregations.aggregationsAsMap();
+
+        ElasticsearchAggregation category = aggs.get(AGG_CATEGORY);
+        if (category != null && category.aggregation().getAggregate().isLterms()) {
+            for (LongTermsBucket bucket : category.aggregation().getAggregate().lterms().buckets().array()) {
+                response.getCategoryCounts().put(bucket.key(), bucket.docCount());
+            }
+        }
+
+        ElasticsearchAggregation domain = aggs.get(AGG_DOMAIN);
+        if (domain != null && domain.aggregation().getAggregate().isSterms()) {
+            for (StringTermsBucket bucket : domain.aggregation().getAggregate().sterms().buckets().array()) {
+                response.getDomainCounts().put(bucket.key().stringValue(), bucket.docCount());
+            }
+        }
+    }
+
+    /**
+     * 游标 = 最后一条结果的排序值（JSON 数组）的 Base64
+     */
+    private String encodeCursor(List<Object> sortValues) {
+        if (sortValues == null || sortValues.isEmpty()) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(JSONUtil.toJsonStr(sortValues).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<Object> decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String json = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            List<Object> values = new ArrayList<>();
+            for (Object value : JSONUtil.parseArray(json)) {
+                // 统一数值类型，避免 BigDecimal 等类型无法转换为 search_after 参数
+                if (value instanceof Number number) {
+                    boolean integral = value instanceof Integer || value instanceof Long
+                            || (value instanceof BigDecimal decimal && decimal.scale() <= 0);
+                    values.add(integral ? (Object) number.longValue() : (Object) number.doubleValue());
+                } else {
+                    values.add(value);
+                }
+            }
+            return values;
         } catch (Exception e) {
-            log.error("搜索失败: userId={}, keyword={}, error={}", userId, keyword, e.getMessage());
-            return new ArrayList<>();
+            throw new IllegalArgumentException("无效的翻页游标");
         }
     }
 
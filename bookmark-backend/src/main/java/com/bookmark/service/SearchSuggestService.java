@@ -0,0 +1,186 @@
+package com.bookmark.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.entity.Bookmark;
+import com.bookmark.entity.BookmarkDocument;
+import com.bookmark.mapper.BookmarkMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.client.elc.NativeQuery;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.query.FetchSourceFilter;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.MultiMatchQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TermQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+
+/**
+ * 搜索输入联想
+ * - 基于 title.suggest（search_as_you_type）的 bool_prefix 查询，不做模糊匹配，不统计总数
+ * - 只返回联想展示需要的字段
+ * - 本地缓存热点前缀：按用户分组，书签索引变更时清除该用户的缓存
+ * - ES 不可用时降级为 MySQL 标题前缀匹配，降级结果不缓存，ES 恢复后立即使用 ES 结果
+ */
+@Slf4j
+@Service
+public class SearchSuggestService {
+
+    @Autowired
+    private ElasticsearchOperations elasticsearchOperations;
+
+    @Autowired
+    private BookmarkMapper bookmarkMapper;
+
+    @Value("${bookmark.search.suggest.size:8}")
+    private int suggestSize;
+
+    @Value("${bookmark.search.suggest.cache-users:2000}")
+    private int cacheUsers;
+
+    @Value("${bookmark.search.suggest.cache-prefixes:50}")
+    private int cachePrefixes;
+
+    @Value("${bookmark.search.suggest.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    private static final int MAX_PREFIX_LENGTH = 50;
+
+    private static final String[] SUGGEST_FIELDS = {
+            "title.suggest", "title.suggest._2gram", "title.suggest._3gram"
+    };
+
+    private static final String[] SOURCE_INCLUDES = {"id", "title", "url", "iconUrl", "categoryId"};
+
+    /**
+     * 用户ID -> (前缀 -> 联想结果)
+     */
+    private LRUCache<Long, Map<String, List<BookmarkDocument>>> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = CacheUtil.newLRUCache(cacheUsers, cacheTtlSeconds * 1000);
+    }
+
+    /**
+     * 获取输入联想（用户隔离）
+     */
+    public List<BookmarkDocument> suggest(Long userId, String prefix) {
+        String key = normalize(prefix);
+        if (key == null) {
+            return Collections.emptyList();
+        }
+
+        Map<String, List<BookmarkDocument>> userCache = cache.get(userId, false);
+        if (userCache != null) {
+            synchronized (userCache) {
+                List<BookmarkDocument> cached = userCache.get(key);
+                if (cached != null) {
+                    return cached;
+                }
+            }
+        }
+
+        List<BookmarkDocument> results;
+        try {
+            results = query(userId, key);
+        } catch (Exception e) {
+            log.warn("输入联想查询 ES 失败，降级为 MySQL 前缀匹配: userId={}, prefix={}, error={}",
+                    userId, key, e.getMessage());
+            return fallbackQuery(userId, key);
+        }
+
+        if (userCache == null) {
+            userCache = createUserCache();
+            cache.put(userId, userCache);
+        }
+        synchronized (userCache) {
+            userCache.put(key, results);
+        }
+        return results;
+    }
+
+    /**
+     * 清除用户的联想缓存
+     */
+    public void invalidate(Collection<Long> userIds) {
+        userIds.forEach(cache::remove);
+    }
+
+    private List<BookmarkDocument> query(Long userId, String prefix) {
+        NativeQuery query = NativeQuery.builder()
+                .withQuery(BoolQuery.of(b -> b
+                        .filter(TermQuery.of(t -> t.field("userId").value(userId))._toQuery())
+                        .must(MultiMatchQuery.of(m -> m
+                                .query(prefix)
+                                .type(TextQueryType.BoolPrefix)
+                                .fields(List.of(SUGGEST_FIELDS)))._toQuery()))._toQuery())
+                .withSourceFilter(new FetchSourceFilter(SOURCE_INCLUDES, null))
+                .withPageable(PageRequest.of(0, suggestSize))
+                .withTrackTotalHits(false)
+                .build();
+
+        return elasticsearchOperations.search(query, BookmarkDocument.class).getSearchHits().stream()
+                .map(SearchHit::getContent)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 降级联想：MySQL 标题前缀匹配（LIKE 'prefix%'，通配符已转义）
+     */
+    private List<BookmarkDocument> fallbackQuery(Long userId, String prefix) {
+        try {
+            String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            return bookmarkMapper.selectList(new QueryWrapper<Bookmark>()
+                            .select("id", "user_id", "title", "url", "icon_url", "category_id")
+                            .eq("user_id", userId)
+                            .eq("status", 1)
+                            .likeRight("title", escaped)
+                            .orderByDesc("visit_count")
+                            .last("LIMIT " + suggestSize))
+                    .stream()
+                    .map(BookmarkDocument::fromBookmark)
+                    .collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("输入联想降级查询失败: userId={}, prefix={}, error={}", userId, prefix, e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private String normalize(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        String value = prefix.trim().toLowerCase();
+        if (value.isEmpty()) {
+            return null;
+        }
+        return value.length() > MAX_PREFIX_LENGTH ? value.substring(0, MAX_PREFIX_LENGTH) : value;
+    }
+
+    /**
+     * 单个用户的前缀缓存，超出容量时淘汰最久未访问的前缀
+     */
+    private Map<String, List<BookmarkDocument>> createUserCache() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<BookmarkDocument>> eldest) {
+                return size() > cachePrefixes;
+            }
+        };
+    }
+}
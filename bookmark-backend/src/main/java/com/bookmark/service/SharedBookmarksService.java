@@ -2,6 +2,7 @@ package com.bookmark.service;
 
 import cn.hutool.core.util.RandomUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.dto.response.BookmarkSummary;
 import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.SharedBookmarks;
 import com.bookmark.entity.User;
@@ -76,7 +77,7 @@ public class SharedBookmarksService {
     /**
      * 获取批量分享内容（公开访问）
      */
-    public Map<String, Object> getShareContent(String shareCode, String password) {
+    public Map<String, Object> getShareContent(String shareCode, String password, boolean summaryView) {
         SharedBookmarks share = sharedBookmarksMapper.selectOne(
                 new QueryWrapper<SharedBookmarks>()
                         .eq("share_code", shareCode)
@@ -108,15 +109,22 @@ public class SharedBookmarksService {
                 .collect(Collectors.toList());
 
         // 获取书签列表
-        List<Bookmark> bookmarks = bookmarkMapper.selectList(
-                new QueryWrapper<Bookmark>()
-                        .in("id", bookmarkIds)
-                        .eq("status", 1)
-                        .orderByDesc("create_time"));
+        QueryWrapper<Bookmark> wrapper = new QueryWrapper<Bookmark>()
+                .in("id", bookmarkIds)
+                .eq("status", 1)
+                .orderByDesc("create_time");
 
         Map<String, Object> result = new HashMap<>();
         result.put("title", share.getTitle());
-        result.put("bookmarks", bookmarks);
+        if (summaryView) {
+            // 摘要视图只读取列表展示需要的列
+            wrapper.select(BookmarkSummary.COLUMNS);
+            result.put("bookmarks", bookmarkMapper.selectList(wrapper).stream()
+                    .map(BookmarkSummary::fromBookmark)
+                    .collect(Collectors.toList()));
+        } else {
+            result.put("bookmarks", bookmarkMapper.selectList(wrapper));
+        }
         result.put("viewCount", share.getViewCount());
         result.put("createTime", share.getCreateTime());
 
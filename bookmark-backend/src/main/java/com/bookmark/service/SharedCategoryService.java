@@ -2,6 +2,7 @@ package com.bookmark.service;
 
 import cn.hutool.core.util.RandomUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.dto.response.BookmarkSummary;
 import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.Category;
 import com.bookmark.entity.SharedCategory;
@@ -18,6 +19,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 分享服务
@@ -76,7 +78,7 @@ public class SharedCategoryService {
     /**
      * 获取分享内容（公开访问）
      */
-    public Map<String, Object> getShareContent(String shareCode, String password) {
+    public Map<String, Object> getShareContent(String shareCode, String password, boolean summaryView) {
         SharedCategory share = sharedCategoryMapper.selectOne(
                 new QueryWrapper<SharedCategory>()
                         .eq("share_code", shareCode)
@@ -106,15 +108,22 @@ public class SharedCategoryService {
         Category category = categoryMapper.selectById(share.getCategoryId());
 
         // 获取分类下的书签
-        List<Bookmark> bookmarks = bookmarkMapper.selectList(
-                new QueryWrapper<Bookmark>()
-                        .eq("category_id", share.getCategoryId())
-                        .eq("status", 1)
-                        .orderByDesc("create_time"));
+        QueryWrapper<Bookmark> wrapper = new QueryWrapper<Bookmark>()
+                .eq("category_id", share.getCategoryId())
+                .eq("status", 1)
+                .orderByDesc("create_time");
 
         Map<String, Object> result = new HashMap<>();
         result.put("categoryName", category != null ? category.getName() : "未知分类");
-        result.put("bookmarks", bookmarks);
+        if (summaryView) {
+            // 摘要视图只读取列表展示需要的列
+            wrapper.select(BookmarkSummary.COLUMNS);
+            result.put("bookmarks", bookmarkMapper.selectList(wrapper).stream()
+                    .map(BookmarkSummary::fromBookmark)
+                    .collect(Collectors.toList()));
+        } else {
+            result.put("bookmarks", bookmarkMapper.selectList(wrapper));
+        }
         result.put("viewCount", share.getViewCount());
         result.put("createTime", share.getCreateTime());
 
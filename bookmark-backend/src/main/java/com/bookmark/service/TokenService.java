@@ -1,5 +1,6 @@
 package com.bookmark.service;
 
+import com.bookmark.security.AuthenticatedPrincipalCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.redis.core.StringRedisTemplate;
@@ -19,6 +20,8 @@ import java.util.concurrent.TimeUnit;
 public class TokenService {
 
     private final StringRedisTemplate redisTemplate;
+    private final AuthenticatedPrincipalCache principalCache;
+    private final PresenceService presenceService;
 
     // Redis Key 前缀
     private static final String ACCESS_TOKEN_PREFIX = "token:access:";
@@ -120,6 +123,29 @@ public class TokenService {
         }
     }
 
+    /**
+     * 校验 Access Token 并按需滑动续期
+     * 一次 TTL 查询同时完成存在性校验和续期判断，仅在需要续期时再发一次 EXPIRE
+     */
+    public boolean validateAndTouchAccessToken(Long userId, String tokenId) {
+        try {
+            String key = ACCESS_TOKEN_PREFIX + userId + ":" + tokenId;
+            Long ttl = redisTemplate.getExpire(key, TimeUnit.SECONDS);
+            // -2 表示 key 不存在
+            if (ttl == null || ttl == -2) {
+                return false;
+            }
+            if (ttl > 0 && ttl < REFRESH_THRESHOLD_MINUTES * 60) {
+                redisTemplate.expire(key, ACCESS_TOKEN_EXPIRE_HOURS, TimeUnit.HOURS);
+                log.debug("自动刷新 Access Token: userId={}", userId);
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("验证 Access Token 失败: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
     /**
      * 刷新 Access Token（延长有效期）
      */
@@ -145,6 +171,8 @@ public class TokenService {
             String userTokensKey = USER_TOKENS_PREFIX + userId;
             redisTemplate.opsForSet().remove(userTokensKey, "access:" + tokenId);
 
+            principalCache.evictToken(tokenId);
+            broadcastRevocation(AuthenticatedPrincipalCache.TOKEN_MESSAGE_PREFIX + tokenId);
             log.debug("删除 Access Token: userId={}, tokenId={}", userId, tokenId);
         } catch (Exception e) {
             log.error("删除 Access Token 失败: {}", e.getMessage(), e);
@@ -163,6 +191,8 @@ public class TokenService {
             String userTokensKey = USER_TOKENS_PREFIX + userId;
             redisTemplate.opsForSet().remove(userTokensKey, "refresh:" + tokenId);
 
+            principalCache.evictToken(tokenId);
+            broadcastRevocation(AuthenticatedPrincipalCache.TOKEN_MESSAGE_PREFIX + tokenId);
             log.debug("删除 Refresh Token: userId={}, tokenId={}", userId, tokenId);
         } catch (Exception e) {
             log.error("删除 Refresh Token 失败: {}", e.getMessage(), e);
@@ -192,6 +222,10 @@ public class TokenService {
 
             // 删除用户 Token 索引
             redisTemplate.delete(userTokensKey);
+            presenceService.markOffline(userId);
+
+            principalCache.evictUser(userId);
+            broadcastRevocation(AuthenticatedPrincipalCache.USER_MESSAGE_PREFIX + userId);
 
             log.info("已注销用户所有 Token: userId={}", userId);
         } catch (Exception e) {
@@ -199,6 +233,17 @@ public class TokenService {
         }
     }
 
+    /**
+     * 广播 Token 注销，通知其他节点清除本地身份缓存
+     */
+    private void broadcastRevocation(String message) {
+        try {
+            redisTemplate.convertAndSend(AuthenticatedPrincipalCache.REVOCATION_CHANNEL, message);
+        } catch (Exception e) {
+            log.error("广播 Token 注销失败: message={}, error={}", message, e.getMessage());
+        }
+    }
+
     /**
      * 获取 Access Token 有效期（小时）
      */
@@ -212,39 +257,4 @@ public class TokenService {
     public long getRefreshTokenExpireDays() {
         return REFRESH_TOKEN_EXPIRE_DAYS;
     }
-
-    /**
-     * 获取当前在线用户数
-     * 通过统计 Redis 中拥有有效 Access Token 的用户数量来判断
-     */
-    public long getOnlineUserCount() {
-        try {
-            // 扫描所有活跃的 Access Token 键
-            Set<String> accessTokenKeys = redisTemplate.keys(ACCESS_TOKEN_PREFIX + "*");
-            if (accessTokenKeys == null || accessTokenKeys.isEmpty()) {
-                return 0;
-            }
-
-            // 提取唯一的用户 ID
-            Set<Long> onlineUserIds = new java.util.HashSet<>();
-            for (String key : accessTokenKeys) {
-                // key 格式: token:access:{userId}:{tokenId}
-                String[] parts = key.replace(ACCESS_TOKEN_PREFIX, "").split(":");
-                if (parts.length >= 1) {
-                    try {
-                        Long userId = Long.parseLong(parts[0]);
-                        onlineUserIds.add(userId);
-                    } catch (NumberFormatException e) {
-                        // 忽略解析错误的 key
-                    }
-                }
-            }
-
-            log.debug("当前在线用户数: {}", onlineUserIds.size());
-            return onlineUserIds.size();
-        } catch (Exception e) {
-            log.error("获取在线用户数失败: {}", e.getMessage(), e);
-            return 0;
-        }
-    }
 }
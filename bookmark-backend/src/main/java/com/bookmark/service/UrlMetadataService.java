@@ -2,10 +2,23 @@ package com.bookmark.service;
 
 import cn.hutool.http.HttpRequest;
 import cn.hutool.http.HttpResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -38,6 +51,66 @@ public class UrlMetadataService {
             "<link[^>]+href=[\"']([^\"']+)[\"'][^>]+rel=[\"'](?:shortcut icon|icon)[\"']",
             Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
 
+    @Value("${bookmark.metadata.fetch-concurrency:8}")
+    private int fetchConcurrency;
+
+    @Value("${bookmark.metadata.batch-timeout-seconds:15}")
+    private long batchTimeoutSeconds;
+
+    /**
+     * 批量抓取使用的有界线程池，同时进行的请求数不超过 fetch-concurrency
+     */
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(fetchConcurrency, r -> {
+            Thread thread = new Thread(r, "url-metadata-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 并发获取多个 URL 的元数据
+     * 相同 URL 只请求一次；超过整体等待时间仍未完成的 URL 不出现在结果中，由调用方按默认值处理
+     *
+     * @return URL -> 元数据
+     */
+    public Map<String, UrlMetadata> fetchMetadataBatch(Collection<String> urls) {
+        Map<String, CompletableFuture<UrlMetadata>> futures = new HashMap<>();
+        for (String url : new LinkedHashSet<>(urls)) {
+            futures.put(url, CompletableFuture.supplyAsync(() -> fetchMetadata(url), executor));
+        }
+
+        Map<String, UrlMetadata> results = new HashMap<>();
+        long deadline = System.currentTimeMillis() + batchTimeoutSeconds * 1000;
+        for (Map.Entry<String, CompletableFuture<UrlMetadata>> entry : futures.entrySet()) {
+            long remaining = deadline - System.currentTimeMillis();
+            try {
+                results.put(entry.getKey(), remaining > 0
+                        ? entry.getValue().get(remaining, TimeUnit.MILLISECONDS)
+                        : entry.getValue().getNow(null));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("批量获取 URL 元数据超时或失败: url={}, error={}", entry.getKey(), e.getMessage());
+            }
+        }
+        // 未完成的请求不再等待
+        futures.values().forEach(future -> future.cancel(true));
+        results.values().removeIf(Objects::isNull);
+        log.debug("批量获取 URL 元数据完成: requested={}, fetched={}", futures.size(), results.size());
+        return results;
+    }
+
     /**
      * 获取 URL 的元数据
      */
@@ -0,0 +1,94 @@
+package com.bookmark.service;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import cn.hutool.core.bean.BeanUtil;
+import com.bookmark.entity.User;
+import com.bookmark.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 用户本地短期缓存
+ * 缓存按 ID 加载的用户，用户信息变更时本地清除并通过 Redis 频道通知其他节点
+ */
+@Slf4j
+@Service
+public class UserCacheService implements MessageListener {
+
+    /**
+     * 用户变更广播频道，消息内容为用户 ID
+     */
+    public static final String USER_CHANGED_CHANNEL = "user:changed";
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @Value("${bookmark.auth.user-cache.capacity:10000}")
+    private int capacity;
+
+    @Value("${bookmark.auth.user-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private LRUCache<Long, User> cache;
+
+    @PostConstruct
+    public void init() {
+        this.cache = CacheUtil.newLRUCache(capacity, ttlSeconds * 1000);
+    }
+
+    /**
+     * 按 ID 获取用户（返回副本，调用方修改不会影响缓存）
+     */
+    public User getUser(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+
+        User user = cache.get(userId, false);
+        if (user == null) {
+            user = userMapper.selectById(userId);
+            if (user == null) {
+                return null;
+            }
+            cache.put(userId, user);
+        }
+        return BeanUtil.copyProperties(user, User.class);
+    }
+
+    /**
+     * 用户信息变更后调用
+     */
+    public void evict(Long userId) {
+        cache.remove(userId);
+        try {
+            redisTemplate.convertAndSend(USER_CHANGED_CHANNEL, String.valueOf(userId));
+        } catch (Exception e) {
+            log.error("广播用户变更失败: userId={}, error={}", userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 接收其他节点的用户变更广播
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            cache.remove(Long.parseLong(body));
+        } catch (NumberFormatException e) {
+            log.warn("无效的用户变更广播: {}", body);
+        }
+    }
+}
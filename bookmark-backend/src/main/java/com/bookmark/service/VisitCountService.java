@@ -0,0 +1,127 @@
+package com.bookmark.service;
+
+import com.bookmark.mapper.BookmarkMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 书签访问次数写回缓冲
+ * 点击只在内存中累加，定时用一条 CASE UPDATE 批量写回数据库；
+ * 每个节点只写回自己累计的增量，多节点部署下计数仍然准确
+ */
+@Slf4j
+@Service
+public class VisitCountService {
+
+    @Autowired
+    private BookmarkMapper bookmarkMapper;
+
+    @Value("${bookmark.visit-count.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    /**
+     * 未写回的增量：书签ID -> 增量
+     * ConcurrentHashMap.merge 按桶加锁，不同书签的点击互不竞争，
+     * 写回时 remove 原子取走增量，不会丢失并发点击
+     */
+    private final Map<Long, PendingVisit> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次访问
+     *
+     * @return 该书签在本节点尚未写回的增量
+     */
+    public long recordVisit(Long bookmarkId, Long userId) {
+        return pending.merge(bookmarkId, new PendingVisit(userId, 1),
+                (a, b) -> new PendingVisit(a.getUserId(), a.getCount() + b.getCount())).getCount();
+    }
+
+    /**
+     * 获取单个书签未写回的增量
+     */
+    public long getPendingCount(Long bookmarkId) {
+        PendingVisit visit = pending.get(bookmarkId);
+        return visit != null ? visit.getCount() : 0;
+    }
+
+    /**
+     * 获取某用户所有未写回的增量（书签ID -> 增量）
+     */
+    public Map<Long, Long> getPendingCounts(Long userId) {
+        Map<Long, Long> result = new HashMap<>();
+        pending.forEach((id, visit) -> {
+            if (userId.equals(visit.getUserId())) {
+                result.put(id, visit.getCount());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 定时写回访问次数
+     */
+    @Scheduled(fixedDelayString = "${bookmark.visit-count.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // 逐个原子取走增量，取走后的新点击进入下一轮
+        Map<Long, PendingVisit> drained = new LinkedHashMap<>();
+        for (Long id : new ArrayList<>(pending.keySet())) {
+            PendingVisit visit = pending.remove(id);
+            if (visit != null) {
+                drained.put(id, visit);
+            }
+        }
+
+        List<Long> ids = new ArrayList<>(drained.keySet());
+        int flushed = 0;
+        for (int i = 0; i < ids.size(); i += flushBatchSize) {
+            Map<Long, Long> deltas = new LinkedHashMap<>();
+            for (Long id : ids.subList(i, Math.min(i + flushBatchSize, ids.size()))) {
+                deltas.put(id, drained.get(id).getCount());
+            }
+            try {
+                bookmarkMapper.incrementVisitCounts(deltas);
+                flushed += deltas.size();
+            } catch (Exception e) {
+                log.error("写回访问次数失败，增量放回缓冲等待重试: size={}, error={}", deltas.size(), e.getMessage(), e);
+                deltas.keySet().forEach(id -> pending.merge(id, drained.get(id),
+                        (a, b) -> new PendingVisit(a.getUserId(), a.getCount() + b.getCount())));
+            }
+        }
+        log.debug("访问次数写回完成: {} 个书签", flushed);
+    }
+
+    /**
+     * 应用关闭前写回剩余增量
+     */
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 未写回的访问记录
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class PendingVisit {
+        private final Long userId;
+        private final long count;
+    }
+}
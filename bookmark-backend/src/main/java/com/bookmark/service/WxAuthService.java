@@ -35,6 +35,9 @@ public class WxAuthService {
     @Autowired
     private JwtTokenProvider jwtTokenProvider;
 
+    @Autowired
+    private UserCacheService userCacheService;
+
     private final RestTemplate restTemplate = new RestTemplate();
 
     /**
@@ -70,6 +73,7 @@ public class WxAuthService {
         // 4. 更新最后登录时间
         user.setLastLoginTime(LocalDateTime.now());
         userMapper.updateById(user);
+        userCacheService.evict(user.getId());
 
         // 5. 生成JWT Token
         String token = jwtTokenProvider.generateToken(String.valueOf(user.getId()));
@@ -108,6 +112,7 @@ public class WxAuthService {
         if (user != null) {
             user.setPhone(request.getPhone());
             userMapper.updateById(user);
+            userCacheService.evict(userId);
             return true;
         }
         return false;
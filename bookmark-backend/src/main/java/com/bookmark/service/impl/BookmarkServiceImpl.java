@@ -1,26 +1,47 @@
 package com.bookmark.service.impl;
 
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.bookmark.dto.request.BookmarkRequest;
+import com.bookmark.dto.response.BookmarkSummary;
+import com.bookmark.dto.response.DuplicateBookmarkGroup;
+import com.bookmark.dto.response.PageResponse;
 import com.bookmark.entity.Bookmark;
 import com.bookmark.entity.User;
 import com.bookmark.mapper.BookmarkMapper;
 import com.bookmark.service.BookmarkService;
+import com.bookmark.service.BookmarkSortPlanner;
+import com.bookmark.service.BookmarkSortPlanner.SortPlan;
 import com.bookmark.service.ActivationCodeService;
 import com.bookmark.service.CategoryCacheService;
-import com.bookmark.service.SearchService;
+import com.bookmark.service.SearchIndexQueue;
 import com.bookmark.service.UrlMetadataService;
 import com.bookmark.service.UrlMetadataService.UrlMetadata;
 import com.bookmark.service.UserService;
+import com.bookmark.service.VisitCountService;
+import com.bookmark.util.UrlHashUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -33,7 +54,7 @@ public class BookmarkServiceImpl implements BookmarkService {
     private UserService userService;
 
     @Autowired
-    private SearchService searchService;
+    private SearchIndexQueue searchIndexQueue;
 
     @Autowired
     private UrlMetadataService urlMetadataService;
@@ -44,6 +65,28 @@ public class BookmarkServiceImpl implements BookmarkService {
     @Autowired
     private CategoryCacheService categoryCacheService;
 
+    @Autowired
+    private VisitCountService visitCountService;
+
+    @Autowired
+    private MysqlSearchEngine mysqlSearchEngine;
+
+    @Autowired
+    private BookmarkSortPlanner sortPlanner;
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
+    private static final int MAX_SUMMARY_PAGE_SIZE = 500;
+
+    private static final int MAX_DUPLICATE_GROUPS = 500;
+
+    private static final DateTimeFormatter CURSOR_TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    /**
+     * 游标翻页的总数缓存（用户+筛选条件 -> 总数），避免每页都执行 COUNT
+     */
+    private final LRUCache<String, Long> listTotalCache = CacheUtil.newLRUCache(10000, 30 * 1000);
+
     @Override
     public Bookmark createBookmark(BookmarkRequest request) {
         try {
@@ -59,89 +102,191 @@ public class BookmarkServiceImpl implements BookmarkService {
                 throw new RuntimeException("书签数量已达上限（" + bookmarkLimit + "个），请删除部分书签或使用激活码增加额度");
             }
 
-            // 如果标题或描述为空，尝试从 URL 获取元数据
-            String title = request.getTitle();
-            String description = request.getDescription();
-            String iconUrl = null;
+            // 检查重复（按 URL 哈希走索引查找）
+            String urlHash = UrlHashUtils.hash(request.getUrl());
+            if (!bookmarkMapper.selectExistingUrlHashes(currentUser.getId(), Collections.singletonList(urlHash))
+                    .isEmpty()) {
+                throw new RuntimeException("该链接已在书签中");
+            }
 
-            if ((title == null || title.isEmpty()) ||
-                    (description == null || description.isEmpty())) {
+            // 如果标题或描述为空，尝试从 URL 获取元数据
+            UrlMetadata metadata = null;
+            if (needsMetadata(request)) {
                 try {
-                    UrlMetadata metadata = urlMetadataService.fetchMetadata(request.getUrl());
-                    if (title == null || title.isEmpty()) {
-                        title = metadata.getTitle();
-                    }
-                    if (description == null || description.isEmpty()) {
-                        description = metadata.getDescription();
-                    }
-                    iconUrl = metadata.getIconUrl();
+                    metadata = urlMetadataService.fetchMetadata(request.getUrl());
                 } catch (Exception e) {
                     log.warn("获取 URL 元数据失败: {}", e.getMessage());
                 }
             }
 
-            // 如果仍然没有标题，使用 URL 的域名
-            if (title == null || title.isEmpty()) {
-                try {
-                    title = request.getUrl().replaceAll("https?://", "").split("/")[0];
-                } catch (Exception e) {
-                    title = request.getUrl();
-                }
+            Bookmark bookmark = buildBookmark(currentUser.getId(), request, metadata);
+            bookmarkMapper.insert(bookmark);
+
+            // 异步同步到 Elasticsearch
+            searchIndexQueue.enqueue(bookmark.getId());
+
+            // 增量更新分类书签数量
+            try {
+                categoryCacheService.adjustBookmarkCount(currentUser.getId(), bookmark.getCategoryId(), 1);
+            } catch (Exception e) {
+                log.error("更新分类书签数量失败: {}", e.getMessage(), e);
             }
 
-            Bookmark bookmark = new Bookmark();
-            bookmark.setUserId(currentUser.getId());
-            bookmark.setTitle(title);
-            bookmark.setUrl(request.getUrl());
-            bookmark.setDescription(description);
-            bookmark.setCategoryId(request.getCategoryId());
-            bookmark.setIsFavorite(request.getIsFavorite() != null ? request.getIsFavorite() : 0);
-            bookmark.setVisitCount(0);
-            bookmark.setSortOrder(0);
-            bookmark.setStatus(1);
+            return bookmark;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("创建书签失败: {}", e.getMessage(), e);
+            throw new RuntimeException("创建书签失败");
+        }
+    }
 
-            // Convert tags to JSON
-            if (request.getTags() != null && !request.getTags().isEmpty()) {
-                bookmark.setTags(JSONUtil.toJsonStr(request.getTags()));
+    @Override
+    public List<Bookmark> createBookmarks(List<BookmarkRequest> requests) {
+        try {
+            User currentUser = userService.getCurrentUser();
+            Long userId = currentUser.getId();
+
+            // 去重：跳过已存在的和本批内重复的链接（整批一次按 URL 哈希走索引查找）
+            Map<String, BookmarkRequest> byHash = new LinkedHashMap<>();
+            for (BookmarkRequest request : requests) {
+                byHash.putIfAbsent(UrlHashUtils.hash(request.getUrl()), request);
+            }
+            bookmarkMapper.selectExistingUrlHashes(userId, byHash.keySet()).forEach(byHash::remove);
+            int duplicates = requests.size() - byHash.size();
+            requests = new ArrayList<>(byHash.values());
+            if (requests.isEmpty()) {
+                log.info("批量创建书签全部重复: userId={}, duplicates={}", userId, duplicates);
+                return Collections.emptyList();
             }
 
-            // 设置图标
-            if (iconUrl != null && !iconUrl.isEmpty()) {
-                bookmark.setIconUrl(iconUrl);
-            } else {
-                try {
-                    String domain = request.getUrl().replaceAll("(https?://[^/]+).*", "$1");
-                    bookmark.setIconUrl(domain + "/favicon.ico");
-                } catch (Exception e) {
-                    bookmark.setIconUrl(null);
+            // 整批只检查一次数量限制
+            int bookmarkLimit = activationCodeService.getUserBookmarkLimit(userId);
+            Long bookmarkCount = bookmarkMapper.selectCount(
+                    new QueryWrapper<Bookmark>()
+                            .eq("user_id", userId)
+                            .eq("status", 1));
+            if (bookmarkCount + requests.size() > bookmarkLimit) {
+                throw new RuntimeException("书签数量将超过上限（" + bookmarkLimit + "个），当前已有" + bookmarkCount
+                        + "个，请减少本次添加数量或使用激活码增加额度");
+            }
+
+            // 需要补全元数据的 URL 并发抓取
+            List<String> metadataUrls = requests.stream()
+                    .filter(this::needsMetadata)
+                    .map(BookmarkRequest::getUrl)
+                    .collect(Collectors.toList());
+            Map<String, UrlMetadata> metadataMap = metadataUrls.isEmpty()
+                    ? Collections.emptyMap()
+                    : urlMetadataService.fetchMetadataBatch(metadataUrls);
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Bookmark> bookmarks = new ArrayList<>(requests.size());
+            Map<Long, Integer> categoryDeltas = new HashMap<>();
+            for (BookmarkRequest request : requests) {
+                Bookmark bookmark = buildBookmark(userId, request,
+                        needsMetadata(request) ? metadataMap.get(request.getUrl()) : null);
+                bookmark.setIsPinned(0);
+                bookmark.setCreateTime(now);
+                bookmark.setUpdateTime(now);
+                bookmarks.add(bookmark);
+                if (bookmark.getCategoryId() != null) {
+                    categoryDeltas.merge(bookmark.getCategoryId(), 1, Integer::sum);
                 }
             }
 
-            bookmarkMapper.insert(bookmark);
+            // 一条多行 INSERT 写入（单条语句本身是原子的，不开启事务，避免抓取元数据期间占用连接）
+            bookmarkMapper.insertBatch(bookmarks);
 
-            // 同步到 Elasticsearch
-            try {
-                searchService.syncBookmark(bookmark);
-            } catch (Exception e) {
-                log.error("同步书签到 Elasticsearch 失败: {}", e.getMessage(), e);
-            }
+            // 整批入队，由索引队列合并为 bulk 请求
+            searchIndexQueue.enqueueAll(bookmarks.stream().map(Bookmark::getId).collect(Collectors.toList()));
 
-            // 刷新分类缓存（更新书签数量）
+            // 一次性调整各分类书签数量
             try {
-                categoryCacheService.refreshUserCategoriesCache(currentUser.getId());
+                categoryCacheService.adjustBookmarkCounts(userId, categoryDeltas);
             } catch (Exception e) {
-                log.error("刷新分类缓存失败: {}", e.getMessage(), e);
+                log.error("更新分类书签数量失败: {}", e.getMessage(), e);
             }
 
-            return bookmark;
+            log.info("批量创建书签: userId={}, count={}, duplicates={}, metadataFetched={}/{}", userId,
+                    bookmarks.size(), duplicates, metadataMap.size(), metadataUrls.size());
+            return bookmarks;
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
-            log.error("创建书签失败: {}", e.getMessage(), e);
-            throw new RuntimeException("创建书签失败");
+            log.error("批量创建书签失败: {}", e.getMessage(), e);
+            throw new RuntimeException("批量创建书签失败");
         }
     }
 
+    /**
+     * 标题或描述为空时需要从 URL 获取元数据
+     */
+    private boolean needsMetadata(BookmarkRequest request) {
+        return request.getTitle() == null || request.getTitle().isEmpty()
+                || request.getDescription() == null || request.getDescription().isEmpty();
+    }
+
+    /**
+     * 按请求和抓取到的元数据构建新书签（不写库）
+     *
+     * @param metadata URL 元数据，未抓取或抓取失败时为 null
+     */
+    private Bookmark buildBookmark(Long userId, BookmarkRequest request, UrlMetadata metadata) {
+        String title = request.getTitle();
+        String description = request.getDescription();
+        String iconUrl = null;
+
+        if (metadata != null) {
+            if (title == null || title.isEmpty()) {
+                title = metadata.getTitle();
+            }
+            if (description == null || description.isEmpty()) {
+                description = metadata.getDescription();
+            }
+            iconUrl = metadata.getIconUrl();
+        }
+
+        // 如果仍然没有标题，使用 URL 的域名
+        if (title == null || title.isEmpty()) {
+            try {
+                title = request.getUrl().replaceAll("https?://", "").split("/")[0];
+            } catch (Exception e) {
+                title = request.getUrl();
+            }
+        }
+
+        Bookmark bookmark = new Bookmark();
+        bookmark.setUserId(userId);
+        bookmark.setTitle(title);
+        bookmark.setUrl(request.getUrl());
+        bookmark.setUrlHash(UrlHashUtils.hash(request.getUrl()));
+        bookmark.setDescription(description);
+        bookmark.setCategoryId(request.getCategoryId());
+        bookmark.setIsFavorite(request.getIsFavorite() != null ? request.getIsFavorite() : 0);
+        bookmark.setVisitCount(0);
+        bookmark.setSortOrder(0);
+        bookmark.setStatus(1);
+
+        // Convert tags to JSON
+        if (request.getTags() != null && !request.getTags().isEmpty()) {
+            bookmark.setTags(JSONUtil.toJsonStr(request.getTags()));
+        }
+
+        // 设置图标
+        if (iconUrl != null && !iconUrl.isEmpty()) {
+            bookmark.setIconUrl(iconUrl);
+        } else {
+            try {
+                String domain = request.getUrl().replaceAll("(https?://[^/]+).*", "$1");
+                bookmark.setIconUrl(domain + "/favicon.ico");
+            } catch (Exception e) {
+                bookmark.setIconUrl(null);
+            }
+        }
+        return bookmark;
+    }
+
     @Override
     public Bookmark updateBookmark(Long id, BookmarkRequest request) {
         try {
@@ -156,6 +301,7 @@ public class BookmarkServiceImpl implements BookmarkService {
                 bookmark.setTitle(request.getTitle());
             if (request.getDescription() != null)
                 bookmark.setDescription(request.getDescription());
+            Long oldCategoryId = bookmark.getCategoryId();
             if (request.getCategoryId() != null)
                 bookmark.setCategoryId(request.getCategoryId());
             if (request.getTags() != null)
@@ -163,13 +309,34 @@ public class BookmarkServiceImpl implements BookmarkService {
             if (request.getIsFavorite() != null)
                 bookmark.setIsFavorite(request.getIsFavorite());
 
-            bookmarkMapper.updateById(bookmark);
-
-            // 同步到 Elasticsearch
-            try {
-                searchService.syncBookmark(bookmark);
-            } catch (Exception e) {
-                log.error("同步书签到 Elasticsearch 失败: {}", e.getMessage(), e);
+            // 只更新可编辑的列，不写回读取时的 visit_count，避免覆盖期间批量写回的访问次数增量
+            bookmark.setUpdateTime(LocalDateTime.now());
+            bookmarkMapper.update(null, new UpdateWrapper<Bookmark>()
+                    .set("title", bookmark.getTitle())
+                    .set("description", bookmark.getDescription())
+                    .set("category_id", bookmark.getCategoryId())
+                    .set("tags", bookmark.getTags())
+                    .set("is_favorite", bookmark.getIsFavorite())
+                    .set("update_time", bookmark.getUpdateTime())
+                    .eq("id", id));
+
+            // 异步同步到 Elasticsearch
+            searchIndexQueue.enqueue(bookmark.getId());
+
+            // 移动分类时调整两个分类的书签数量
+            if (!Objects.equals(oldCategoryId, bookmark.getCategoryId())) {
+                try {
+                    Map<Long, Integer> deltas = new HashMap<>();
+                    if (oldCategoryId != null) {
+                        deltas.put(oldCategoryId, -1);
+                    }
+                    if (bookmark.getCategoryId() != null) {
+                        deltas.put(bookmark.getCategoryId(), 1);
+                    }
+                    categoryCacheService.adjustBookmarkCounts(currentUser.getId(), deltas);
+                } catch (Exception e) {
+                    log.error("更新分类书签数量失败: {}", e.getMessage(), e);
+                }
             }
 
             return bookmark;
@@ -191,26 +358,16 @@ public class BookmarkServiceImpl implements BookmarkService {
                 throw new RuntimeException("书签不存在或无权限");
             }
 
-            // 使用 CompletableFuture.runAsync 异步执行删除操作
-            CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
-                try {
-                    // 先从 Elasticsearch 删除
-                    searchService.deleteBookmark(id);
-                } catch (Exception e) {
-                    log.error("从 Elasticsearch 删除书签失败: {}", e.getMessage(), e);
-                }
-                // 再从数据库删除
-                bookmarkMapper.deleteById(id);
-            });
+            bookmarkMapper.deleteById(id);
 
-            // 等待异步操作完成
-            future.join();
+            // 异步从 Elasticsearch 删除
+            searchIndexQueue.enqueue(id);
 
-            // 刷新分类缓存（更新书签数量）
+            // 增量更新分类书签数量
             try {
-                categoryCacheService.refreshUserCategoriesCache(currentUser.getId());
+                categoryCacheService.adjustBookmarkCount(currentUser.getId(), bookmark.getCategoryId(), -1);
             } catch (Exception e) {
-                log.error("刷新分类缓存失败: {}", e.getMessage(), e);
+                log.error("更新分类书签数量失败: {}", e.getMessage(), e);
             }
         } catch (RuntimeException e) {
             throw e;
@@ -224,15 +381,32 @@ public class BookmarkServiceImpl implements BookmarkService {
     public void deleteBatch(List<Long> ids) {
         try {
             User currentUser = userService.getCurrentUser();
+            // 先取出待删除书签的分类，用于增量调整数量
+            List<Bookmark> deletedBookmarks = bookmarkMapper.selectList(new QueryWrapper<Bookmark>()
+                    .select("id", "category_id")
+                    .eq("user_id", currentUser.getId())
+                    .in("id", ids));
+            if (deletedBookmarks.isEmpty()) {
+                return;
+            }
             bookmarkMapper.delete(new QueryWrapper<Bookmark>()
                     .eq("user_id", currentUser.getId())
                     .in("id", ids));
 
-            // 刷新分类缓存（更新书签数量）
+            // 异步从 Elasticsearch 删除
+            searchIndexQueue.enqueueAll(deletedBookmarks.stream().map(Bookmark::getId).collect(Collectors.toList()));
+
+            // 增量更新分类书签数量
             try {
-                categoryCacheService.refreshUserCategoriesCache(currentUser.getId());
+                Map<Long, Integer> deltas = new HashMap<>();
+                for (Bookmark deleted : deletedBookmarks) {
+                    if (deleted.getCategoryId() != null) {
+                        deltas.merge(deleted.getCategoryId(), -1, Integer::sum);
+                    }
+                }
+                categoryCacheService.adjustBookmarkCounts(currentUser.getId(), deltas);
             } catch (Exception e) {
-                log.error("刷新分类缓存失败: {}", e.getMessage(), e);
+                log.error("更新分类书签数量失败: {}", e.getMessage(), e);
             }
         } catch (Exception e) {
             log.error("批量删除书签失败: {}", e.getMessage(), e);
@@ -250,6 +424,13 @@ public class BookmarkServiceImpl implements BookmarkService {
                 throw new RuntimeException("书签不存在或无权限");
             }
 
+            // 合并未写回的访问次数
+            long pendingCount = visitCountService.getPendingCount(id);
+            if (pendingCount > 0) {
+                int visitCount = bookmark.getVisitCount() != null ? bookmark.getVisitCount() : 0;
+                bookmark.setVisitCount((int) (visitCount + pendingCount));
+            }
+
             return bookmark;
         } catch (RuntimeException e) {
             throw e;
@@ -262,64 +443,166 @@ public class BookmarkServiceImpl implements BookmarkService {
     @Override
     public Page<Bookmark> getBookmarkList(Integer page, Integer size, Long categoryId,
             String keyword, String sortBy, String sortOrder, Integer isFavorite) {
+        // 排序参数不在白名单中时直接拒绝
+        SortPlan sortPlan = sortPlanner.plan(sortBy, sortOrder);
         try {
             User currentUser = userService.getCurrentUser();
 
             Page<Bookmark> pageParam = new Page<>(page, size);
-            QueryWrapper<Bookmark> wrapper = new QueryWrapper<>();
+            QueryWrapper<Bookmark> wrapper = buildListWrapper(currentUser.getId(), categoryId, keyword, isFavorite);
 
-            // 1. 基础过滤条件：属于当前用户
-            wrapper.eq("user_id", currentUser.getId());
+            // 排序逻辑：置顶书签优先，再按排序计划（与复合索引顺序一致）
+            sortPlanner.apply(sortPlan, wrapper, categoryId, keyword != null && !keyword.isBlank());
 
-            // 2. 新增条件：只查找 status 为 1 的数据
-            wrapper.eq("status", 1);
+            return bookmarkMapper.selectPage(pageParam, wrapper);
+        } catch (Exception e) {
+            log.error("获取书签列表失败: {}", e.getMessage(), e);
+            throw new RuntimeException("获取书签列表失败");
+        }
+    }
 
-            // 3. 筛选：分类
-            if (categoryId != null) {
-                wrapper.eq("category_id", categoryId);
-            }
+    @Override
+    public long streamBookmarkSummaries(Integer page, Integer size, Long categoryId, String keyword,
+            String sortBy, String sortOrder, Integer isFavorite, Consumer<BookmarkSummary> consumer) {
+        SortPlan sortPlan = sortPlanner.plan(sortBy, sortOrder);
+        User currentUser = userService.getCurrentUser();
+        int pageNo = Math.max(page != null ? page : 1, 1);
+        int pageSize = Math.max(1, Math.min(size != null ? size : 20, MAX_SUMMARY_PAGE_SIZE));
+
+        QueryWrapper<Bookmark> wrapper = buildListWrapper(currentUser.getId(), categoryId, keyword, isFavorite);
+        long total;
+        try {
+            total = bookmarkMapper.selectCount(wrapper.clone());
+        } catch (Exception e) {
+            log.error("获取书签列表失败: {}", e.getMessage(), e);
+            throw new RuntimeException("获取书签列表失败");
+        }
+        if (total == 0 || (long) (pageNo - 1) * pageSize >= total) {
+            return total;
+        }
 
-            // 4. 筛选：收藏夹
-            if (isFavorite != null && isFavorite == 1) {
-                wrapper.eq("is_favorite", 1);
-            }
+        // 只读取摘要列，逐行回调写出，不构建整页实体列表
+        wrapper.select(BookmarkSummary.COLUMNS);
+        sortPlanner.apply(sortPlan, wrapper, categoryId, keyword != null && !keyword.isBlank());
+        wrapper.last("LIMIT " + (long) (pageNo - 1) * pageSize + ", " + pageSize);
+        bookmarkMapper.selectList(wrapper, context -> consumer.accept(BookmarkSummary.fromBookmark(context.getResultObject())));
+        return total;
+    }
 
-            // 5. 筛选：关键字模糊查询
-            if (keyword != null && !keyword.isEmpty()) {
-                wrapper.and(w -> w.like("title", keyword).or().like("description", keyword).or().like("url", keyword));
-            }
+    /**
+     * 书签列表的筛选条件（用户、状态、分类、收藏、关键词）
+     */
+    private QueryWrapper<Bookmark> buildListWrapper(Long userId, Long categoryId, String keyword, Integer isFavorite) {
+        QueryWrapper<Bookmark> wrapper = new QueryWrapper<>();
+
+        // 1. 基础过滤条件：属于当前用户
+        wrapper.eq("user_id", userId);
+
+        // 2. 新增条件：只查找 status 为 1 的数据
+        wrapper.eq("status", 1);
+
+        // 3. 筛选：分类
+        if (categoryId != null) {
+            wrapper.eq("category_id", categoryId);
+        }
 
-            // 6. 排序逻辑：置顶书签优先
-            wrapper.orderByDesc("is_pinned"); // 置顶书签优先显示
-            if (sortBy != null && !sortBy.isEmpty()) {
-                if ("desc".equalsIgnoreCase(sortOrder)) {
-                    wrapper.orderByDesc(sortBy);
-                } else {
-                    wrapper.orderByAsc(sortBy);
+        // 4. 筛选：收藏夹
+        if (isFavorite != null && isFavorite == 1) {
+            wrapper.eq("is_favorite", 1);
+        }
+
+        // 5. 筛选：关键字（全文索引匹配）
+        mysqlSearchEngine.applyKeywordCondition(wrapper, keyword);
+
+        return wrapper;
+    }
+
+    @Override
+    public PageResponse<Bookmark> getBookmarkListByCursor(String cursor, Integer size, Long categoryId,
+            String keyword, Integer isFavorite, boolean includeTotal) {
+        try {
+            User currentUser = userService.getCurrentUser();
+            int limit = Math.max(1, Math.min(size != null ? size : 20, MAX_CURSOR_PAGE_SIZE));
+
+            QueryWrapper<Bookmark> wrapper = buildListWrapper(currentUser.getId(), categoryId, keyword, isFavorite);
+
+            // 统计总数使用不含游标条件的查询
+            Long total = null;
+            if (includeTotal) {
+                String totalKey = currentUser.getId() + ":" + categoryId + ":" + isFavorite + ":" + keyword;
+                total = listTotalCache.get(totalKey, false);
+                if (total == null) {
+                    total = bookmarkMapper.selectCount(wrapper.clone());
+                    listTotalCache.put(totalKey, total);
                 }
-            } else {
-                wrapper.orderByDesc("create_time");
             }
 
-            return bookmarkMapper.selectPage(pageParam, wrapper);
+            // 游标条件：(is_pinned, create_time, id) 严格小于上一页最后一条，
+            // 展开为 OR 形式才能走 idx_user_status_pinned_time 索引范围扫描（行构造器比较会逐行过滤），不需要 OFFSET
+            Object[] position = decodeListCursor(cursor);
+            if (position != null) {
+                wrapper.apply("(is_pinned < {0} OR (is_pinned = {0} AND (create_time < {1} "
+                        + "OR (create_time = {1} AND id < {2}))))", position);
+            }
+            wrapper.orderByDesc("is_pinned", "create_time", "id");
+            // 多取一条判断是否还有下一页
+            wrapper.last("LIMIT " + (limit + 1));
+
+            List<Bookmark> records = bookmarkMapper.selectList(wrapper);
+            String nextCursor = null;
+            if (records.size() > limit) {
+                records = new ArrayList<>(records.subList(0, limit));
+                Bookmark last = records.get(records.size() - 1);
+                nextCursor = (last.getIsPinned() != null ? last.getIsPinned() : 0) + ","
+                        + last.getCreateTime().format(CURSOR_TIME_FORMAT) + "," + last.getId();
+            }
+            return new PageResponse<>(total, records, nextCursor);
+        } catch (RuntimeException e) {
+            throw e;
         } catch (Exception e) {
             log.error("获取书签列表失败: {}", e.getMessage(), e);
             throw new RuntimeException("获取书签列表失败");
         }
     }
 
+    /**
+     * 解析列表游标 "isPinned,createTime,id"，空字符串表示第一页
+     */
+    private Object[] decodeListCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String[] parts = cursor.split(",");
+        if (parts.length != 3) {
+            throw new RuntimeException("无效的翻页游标");
+        }
+        try {
+            return new Object[] {
+                    Integer.parseInt(parts[0].trim()),
+                    LocalDateTime.parse(parts[1].trim(), CURSOR_TIME_FORMAT),
+                    Long.parseLong(parts[2].trim())
+            };
+        } catch (Exception e) {
+            throw new RuntimeException("无效的翻页游标");
+        }
+    }
+
     @Override
     public void updateFavorite(Long id, Integer isFavorite) {
         try {
             User currentUser = userService.getCurrentUser();
-            Bookmark bookmark = bookmarkMapper.selectById(id);
-
-            if (bookmark == null || !bookmark.getUserId().equals(currentUser.getId())) {
+            Long count = bookmarkMapper.selectCount(new QueryWrapper<Bookmark>()
+                    .eq("id", id)
+                    .eq("user_id", currentUser.getId()));
+            if (count == 0) {
                 throw new RuntimeException("书签不存在或无权限");
             }
 
-            bookmark.setIsFavorite(isFavorite);
-            bookmarkMapper.updateById(bookmark);
+            // 只更新收藏列，不整行写回（避免覆盖 visit_count 增量）
+            bookmarkMapper.update(null, new UpdateWrapper<Bookmark>()
+                    .set("is_favorite", isFavorite)
+                    .set("update_time", LocalDateTime.now())
+                    .eq("id", id));
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
@@ -329,21 +612,27 @@ public class BookmarkServiceImpl implements BookmarkService {
     }
 
     @Override
-    public void increaseVisitCount(Long id) {
+    public Integer increaseVisitCount(Long id) {
         try {
             User currentUser = userService.getCurrentUser();
-            Bookmark bookmark = bookmarkMapper.selectById(id);
+            // 只读取归属和访问次数两列
+            Bookmark bookmark = bookmarkMapper.selectOne(new QueryWrapper<Bookmark>()
+                    .select("user_id", "visit_count")
+                    .eq("id", id));
 
             if (bookmark == null || !bookmark.getUserId().equals(currentUser.getId())) {
                 throw new RuntimeException("书签不存在或无权限");
             }
 
-            bookmark.setVisitCount(bookmark.getVisitCount() + 1);
-            bookmarkMapper.updateById(bookmark);
+            // 只在内存中累加，由 VisitCountService 定时批量写回
+            long pendingCount = visitCountService.recordVisit(id, currentUser.getId());
+            int visitCount = bookmark.getVisitCount() != null ? bookmark.getVisitCount() : 0;
+            return (int) (visitCount + pendingCount);
         } catch (RuntimeException e) {
             throw e;
         } catch (Exception e) {
             log.error("增加访问次数失败: {}", e.getMessage(), e);
+            return null;
         }
     }
 
@@ -366,24 +655,21 @@ public class BookmarkServiceImpl implements BookmarkService {
         try {
             User currentUser = userService.getCurrentUser();
             // 使用原生 SQL 恢复，绕过 @TableLogic
-            bookmarkMapper.restoreById(id, currentUser.getId());
+            int restoredRows = bookmarkMapper.restoreById(id, currentUser.getId());
+            Bookmark restored = restoredRows > 0 ? bookmarkMapper.selectById(id) : null;
 
-            // 同步到ES索引（恢复后需要重建索引）
-            try {
-                Bookmark restored = bookmarkMapper.selectById(id);
-                if (restored != null) {
-                    searchService.syncBookmark(restored);
-                    log.info("已同步恢复的书签到ES索引: bookmarkId={}", id);
-                }
-            } catch (Exception e) {
-                log.error("同步ES索引失败: {}", e.getMessage(), e);
+            // 异步同步到ES索引（恢复后需要重建索引）
+            if (restored != null) {
+                searchIndexQueue.enqueue(id);
             }
 
-            // 刷新分类缓存（更新书签数量）
-            try {
-                categoryCacheService.refreshUserCategoriesCache(currentUser.getId());
-            } catch (Exception e) {
-                log.error("刷新分类缓存失败: {}", e.getMessage(), e);
+            // 增量更新分类书签数量
+            if (restored != null) {
+                try {
+                    categoryCacheService.adjustBookmarkCount(currentUser.getId(), restored.getCategoryId(), 1);
+                } catch (Exception e) {
+                    log.error("更新分类书签数量失败: {}", e.getMessage(), e);
+                }
             }
         } catch (Exception e) {
             log.error("恢复书签失败: {}", e.getMessage(), e);
@@ -421,15 +707,15 @@ public class BookmarkServiceImpl implements BookmarkService {
     public void updatePinStatus(Long id, Integer isPinned) {
         try {
             User currentUser = userService.getCurrentUser();
-            Bookmark bookmark = bookmarkMapper.selectOne(
-                    new QueryWrapper<Bookmark>()
-                            .eq("id", id)
-                            .eq("user_id", currentUser.getId()));
-            if (bookmark == null) {
+            // 只更新置顶列，不整行写回（避免覆盖 visit_count 增量）
+            int updated = bookmarkMapper.update(null, new UpdateWrapper<Bookmark>()
+                    .set("is_pinned", isPinned)
+                    .set("update_time", LocalDateTime.now())
+                    .eq("id", id)
+                    .eq("user_id", currentUser.getId()));
+            if (updated == 0) {
                 throw new RuntimeException("书签不存在");
             }
-            bookmark.setIsPinned(isPinned);
-            bookmarkMapper.updateById(bookmark);
         } catch (Exception e) {
             log.error("更新置顶状态失败: {}", e.getMessage(), e);
             throw new RuntimeException("更新置顶状态失败");
@@ -440,18 +726,33 @@ public class BookmarkServiceImpl implements BookmarkService {
     public List<Bookmark> getPinnedBookmarks() {
         try {
             User currentUser = userService.getCurrentUser();
-            return bookmarkMapper.selectList(
-                    new QueryWrapper<Bookmark>()
-                            .eq("user_id", currentUser.getId())
-                            .eq("is_pinned", 1)
-                            .eq("status", 1)
-                            .orderByDesc("update_time"));
+            return bookmarkMapper.selectList(pinnedWrapper(currentUser.getId()));
         } catch (Exception e) {
             log.error("获取置顶书签失败: {}", e.getMessage(), e);
             return Collections.emptyList();
         }
     }
 
+    @Override
+    public List<BookmarkSummary> getPinnedBookmarkSummaries() {
+        try {
+            User currentUser = userService.getCurrentUser();
+            return bookmarkMapper.selectList(pinnedWrapper(currentUser.getId()).select(BookmarkSummary.COLUMNS))
+                    .stream().map(BookmarkSummary::fromBookmark).collect(Collectors.toList());
+        } catch (Exception e) {
+            log.error("获取置顶书签失败: {}", e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    private QueryWrapper<Bookmark> pinnedWrapper(Long userId) {
+        return new QueryWrapper<Bookmark>()
+                .eq("user_id", userId)
+                .eq("is_pinned", 1)
+                .eq("status", 1)
+                .orderByDesc("update_time");
+    }
+
     // ========== 高级搜索相关方法 ==========
 
     @Override
@@ -466,12 +767,8 @@ public class BookmarkServiceImpl implements BookmarkService {
             wrapper.eq("user_id", currentUser.getId());
             wrapper.eq("status", 1);
 
-            // 关键字搜索
-            if (keyword != null && !keyword.isEmpty()) {
-                wrapper.and(w -> w.like("title", keyword)
-                        .or().like("description", keyword)
-                        .or().like("url", keyword));
-            }
+            // 关键字搜索（全文索引匹配）
+            mysqlSearchEngine.applyKeywordCondition(wrapper, keyword);
 
             // 域名筛选
             if (domain != null && !domain.isEmpty()) {
@@ -511,15 +808,72 @@ public class BookmarkServiceImpl implements BookmarkService {
     public List<Bookmark> getDeadLinks() {
         try {
             User currentUser = userService.getCurrentUser();
-            return bookmarkMapper.selectList(
-                    new QueryWrapper<Bookmark>()
-                            .eq("user_id", currentUser.getId())
-                            .eq("status", 1)
-                            .eq("link_status", 2) // 2 = 失效
-                            .orderByDesc("last_check_time"));
+            return bookmarkMapper.selectList(deadLinksWrapper(currentUser.getId()));
+        } catch (Exception e) {
+            log.error("获取失效链接失败: {}", e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    @Override
+    public List<BookmarkSummary> getDeadLinkSummaries() {
+        try {
+            User currentUser = userService.getCurrentUser();
+            return bookmarkMapper.selectList(deadLinksWrapper(currentUser.getId()).select(BookmarkSummary.COLUMNS))
+                    .stream().map(BookmarkSummary::fromBookmark).collect(Collectors.toList());
         } catch (Exception e) {
             log.error("获取失效链接失败: {}", e.getMessage(), e);
             return Collections.emptyList();
         }
     }
+
+    @Override
+    public List<DuplicateBookmarkGroup> getDuplicateBookmarks(Integer limit) {
+        User currentUser = userService.getCurrentUser();
+        Long userId = currentUser.getId();
+        int groupLimit = limit == null || limit <= 0 ? 100 : Math.min(limit, MAX_DUPLICATE_GROUPS);
+
+        // 先按 URL 哈希分组找出重复的哈希，再只读取这些哈希下的书签
+        List<Map<String, Object>> rows = bookmarkMapper.selectDuplicateUrlHashes(userId, groupLimit);
+        if (rows.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> hashes = new HashSet<>();
+        Map<String, DuplicateBookmarkGroup> groups = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            String hash = (String) row.get("url_hash");
+            DuplicateBookmarkGroup group = new DuplicateBookmarkGroup();
+            group.setCount(((Number) row.get("cnt")).intValue());
+            group.setBookmarks(new ArrayList<>());
+            groups.put(hash, group);
+            hashes.add(hash);
+        }
+
+        String[] columns = Arrays.copyOf(BookmarkSummary.COLUMNS, BookmarkSummary.COLUMNS.length + 1);
+        columns[columns.length - 1] = "url_hash";
+        bookmarkMapper.selectList(new QueryWrapper<Bookmark>()
+                .select(columns)
+                .eq("user_id", userId)
+                .eq("status", 1)
+                .in("url_hash", hashes)
+                .orderByAsc("create_time", "id"))
+                .forEach(b -> {
+                    DuplicateBookmarkGroup group = groups.get(b.getUrlHash());
+                    if (group.getNormalizedUrl() == null) {
+                        group.setNormalizedUrl(UrlHashUtils.normalize(b.getUrl()));
+                    }
+                    group.getBookmarks().add(BookmarkSummary.fromBookmark(b));
+                });
+
+        log.info("重复书签报告: userId={}, groups={}", userId, groups.size());
+        return new ArrayList<>(groups.values());
+    }
+
+    private QueryWrapper<Bookmark> deadLinksWrapper(Long userId) {
+        return new QueryWrapper<Bookmark>()
+                .eq("user_id", userId)
+                .eq("status", 1)
+                .eq("link_status", 2) // 2 = 失效
+                .orderByDesc("last_check_time");
+    }
 }
@@ -11,7 +11,7 @@ import com.bookmark.mapper.CategoryMapper;
 import com.bookmark.service.ActivationCodeService;
 import com.bookmark.service.CategoryCacheService;
 import com.bookmark.service.CategoryService;
-import com.bookmark.service.SearchService;
+import com.bookmark.service.SearchIndexQueue;
 import com.bookmark.service.UserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -19,6 +19,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -40,7 +41,7 @@ public class CategoryServiceImpl implements CategoryService {
     private CategoryCacheService categoryCacheService;
 
     @Autowired
-    private SearchService searchService;
+    private SearchIndexQueue searchIndexQueue;
 
     @Override
     public Category createCategory(CategoryRequest request) {
@@ -136,23 +137,18 @@ public class CategoryServiceImpl implements CategoryService {
             }
 
             if (deleteBookmarks) {
-                // 删除该分类下的所有书签（包括ES）
+                // 删除该分类下的所有书签（ES 异步删除）
                 List<Bookmark> bookmarks = bookmarkMapper.selectList(
                         new QueryWrapper<Bookmark>()
+                                .select("id")
                                 .eq("category_id", id)
                                 .eq("user_id", currentUser.getId()));
 
-                for (Bookmark bookmark : bookmarks) {
-                    try {
-                        searchService.deleteBookmark(bookmark.getId());
-                    } catch (Exception e) {
-                        log.error("从 Elasticsearch 删除书签失败: {}", e.getMessage(), e);
-                    }
-                }
-
                 bookmarkMapper.delete(new QueryWrapper<Bookmark>()
                         .eq("category_id", id)
                         .eq("user_id", currentUser.getId()));
+
+                searchIndexQueue.enqueueAll(bookmarks.stream().map(Bookmark::getId).collect(Collectors.toList()));
             } else {
                 // 将书签移至未分类
                 bookmarkMapper.update(null, new UpdateWrapper<Bookmark>()
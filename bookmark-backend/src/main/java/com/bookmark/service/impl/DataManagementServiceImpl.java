@@ -1,10 +1,10 @@
 package com.bookmark.service.impl;
 
+import cn.hutool.core.io.IoUtil;
 import cn.hutool.json.JSONArray;
 import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.bookmark.dto.request.ImportRequest;
 import com.bookmark.dto.response.ExportResponse;
 import com.bookmark.dto.response.ImportResponse;
 import com.bookmark.entity.Bookmark;
@@ -14,20 +14,33 @@ import com.bookmark.entity.User;
 import com.bookmark.mapper.BookmarkMapper;
 import com.bookmark.mapper.CategoryMapper;
 import com.bookmark.mapper.TagMapper;
+import com.bookmark.service.CategoryCacheService;
 import com.bookmark.service.DataManagementService;
-import com.bookmark.service.SearchService;
+import com.bookmark.service.ImportCheckpoint;
+import com.bookmark.service.SearchIndexQueue;
 import com.bookmark.service.UserService;
+import com.bookmark.util.BookmarkExportWriter;
+import com.bookmark.util.NetscapeBookmarkParser;
+import com.bookmark.util.UrlHashUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Reader;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.CancellationException;
+import java.util.stream.Collectors;
 
 /**
  * 数据管理服务实现
@@ -41,15 +54,21 @@ public class DataManagementServiceImpl implements DataManagementService {
     private final CategoryMapper categoryMapper;
     private final TagMapper tagMapper;
     private final UserService userService;
-    private final SearchService searchService;
+    private final SearchIndexQueue searchIndexQueue;
+    private final CategoryCacheService categoryCacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
 
-    // 正则表达式用于解析 HTML 书签
-    private static final Pattern FOLDER_PATTERN = Pattern.compile(
-            "<DT><H3[^>]*>([^<]+)</H3>", Pattern.CASE_INSENSITIVE);
-    private static final Pattern BOOKMARK_PATTERN = Pattern.compile(
-            "<DT><A\\s+HREF=\"([^\"]+)\"[^>]*(?:ADD_DATE=\"(\\d+)\")?[^>]*>([^<]*)</A>",
-            Pattern.CASE_INSENSITIVE);
-    private static final Pattern DL_END = Pattern.compile("</DL>", Pattern.CASE_INSENSITIVE);
+    /**
+     * 导入时每批多行 INSERT 的书签数，每批单独提交
+     */
+    @Value("${bookmark.import.chunk-size:500}")
+    private int importChunkSize;
+
+    /**
+     * 校验浏览器书签文件头时预读的字符数
+     */
+    private static final int HEADER_PEEK_CHARS = 4096;
 
     @Override
     public ExportResponse exportData() {
@@ -97,22 +116,69 @@ public class DataManagementServiceImpl implements DataManagementService {
     }
 
     @Override
-    @Transactional
-    public ImportResponse importData(ImportRequest request) {
+    public void exportBookmarks(Long userId, BookmarkExportWriter.Format format, OutputStream out)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        Map<Long, String> categoryNames = new HashMap<>();
+        categoryMapper.selectList(
+                new QueryWrapper<Category>()
+                        .select("id", "name")
+                        .eq("user_id", userId))
+                .forEach(c -> categoryNames.put(c.getId(), c.getName()));
+
+        BookmarkExportWriter writer = BookmarkExportWriter.create(format, out, categoryNames, objectMapper);
+        writer.start();
+        long[] count = { 0 };
+        try {
+            bookmarkMapper.streamByUser(userId, context -> {
+                writer.write(context.getResultObject());
+                count[0]++;
+            });
+        } catch (RuntimeException e) {
+            // 客户端断开等写出异常在回调中被包装，还原为 IOException
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof UncheckedIOException)) {
+                cause = cause.getCause();
+            }
+            if (cause != null) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            throw e;
+        }
+        writer.finish();
+
+        log.info("流式导出书签完成: userId={}, format={}, count={}, elapsed={}ms",
+                userId, format, count[0], System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按类型分发导入；不在整个导入上开启事务，书签按批写入、每批单独提交
+     */
+    @Override
+    public ImportResponse importData(Long userId, String type, Reader reader, ImportCheckpoint checkpoint) {
         try {
-            String importType = request.getImportType().toUpperCase();
+            String importType = type.toUpperCase();
+            long start = System.currentTimeMillis();
 
+            ImportResponse response;
             switch (importType) {
                 case "CHROME":
                 case "EDGE":
-                    return importFromBrowser(request.getContent());
+                    response = importFromBrowser(userId, reader, checkpoint);
+                    break;
                 case "JSON":
-                    return importFromJson(request.getContent());
+                    response = importFromJson(userId, IoUtil.read(reader), checkpoint);
+                    break;
                 default:
                     ImportResponse errorResponse = new ImportResponse();
                     errorResponse.addMessage("不支持的导入类型: " + importType);
                     return errorResponse;
             }
+
+            long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+            response.setElapsedMs(elapsed);
+            response.setRowsPerSecond(response.getSuccessCount() * 1000L / elapsed);
+            return response;
         } catch (Exception e) {
             log.error("导入数据失败: {}", e.getMessage(), e);
             ImportResponse errorResponse = new ImportResponse();
@@ -128,17 +194,11 @@ public class DataManagementServiceImpl implements DataManagementService {
             User currentUser = userService.getCurrentUser();
             Long userId = currentUser.getId();
 
-            // 删除所有书签（包括 ES）
+            // 删除所有书签（ES 在事务提交后异步删除）
             List<Bookmark> bookmarks = bookmarkMapper.selectList(
-                    new QueryWrapper<Bookmark>().eq("user_id", userId));
-            for (Bookmark bookmark : bookmarks) {
-                try {
-                    searchService.deleteBookmark(bookmark.getId());
-                } catch (Exception e) {
-                    log.error("从 ES 删除书签失败: id={}, error={}", bookmark.getId(), e.getMessage());
-                }
-            }
+                    new QueryWrapper<Bookmark>().select("id").eq("user_id", userId));
             bookmarkMapper.delete(new QueryWrapper<Bookmark>().eq("user_id", userId));
+            searchIndexQueue.enqueueAll(bookmarks.stream().map(Bookmark::getId).collect(Collectors.toList()));
 
             // 删除所有分类
             categoryMapper.delete(new QueryWrapper<Category>().eq("user_id", userId));
@@ -175,52 +235,42 @@ public class DataManagementServiceImpl implements DataManagementService {
     }
 
     /**
-     * 从浏览器 HTML 格式导入书签
+     * 从浏览器 HTML 格式导入书签（流式解析，不读入整个文件）
      */
-    private ImportResponse importFromBrowser(String htmlContent) {
+    private ImportResponse importFromBrowser(Long userId, Reader reader, ImportCheckpoint checkpoint) {
         ImportResponse response = new ImportResponse();
 
         try {
-            User currentUser = userService.getCurrentUser();
-            Long userId = currentUser.getId();
-
-            // 验证格式
-            if (!htmlContent.contains("<!DOCTYPE NETSCAPE-Bookmark-file-1>") &&
-                    !htmlContent.toUpperCase().contains("NETSCAPE-BOOKMARK-FILE")) {
+            // 验证格式：只预读文件头
+            BufferedReader in = new BufferedReader(reader);
+            if (!isNetscapeBookmarkFile(in)) {
                 response.addMessage("格式错误：不是有效的浏览器书签 HTML 文件");
                 return response;
             }
 
-            // 获取现有 URL 用于检查重复
-            Set<String> existingUrls = new HashSet<>();
-            bookmarkMapper.selectList(
-                    new QueryWrapper<Bookmark>()
-                            .eq("user_id", userId)
-                            .eq("status", 1))
-                    .forEach(b -> existingUrls.add(normalizeUrl(b.getUrl())));
-
             // 获取现有分类（按名称索引）
             Map<String, Category> categoryMap = new HashMap<>();
             categoryMapper.selectList(
                     new QueryWrapper<Category>().eq("user_id", userId))
                     .forEach(c -> categoryMap.put(c.getName().toLowerCase(), c));
 
-            // 解析并导入
-            List<Bookmark> importedBookmarks = new ArrayList<>();
-            parseAndImportHtml(htmlContent, userId, null, existingUrls, categoryMap, response, importedBookmarks);
-
-            // 批量同步到 ES
-            if (!importedBookmarks.isEmpty()) {
-                try {
-                    searchService.syncAllBookmarks(importedBookmarks);
-                } catch (Exception e) {
-                    log.error("批量同步到 ES 失败: {}", e.getMessage(), e);
-                }
+            // 解析并按批导入
+            ImportChunkWriter writer = new ImportChunkWriter(userId, response, checkpoint);
+            try {
+                new NetscapeBookmarkParser(in).parse(
+                        new BrowserImportHandler(userId, categoryMap, response, writer));
+            } finally {
+                // 解析中途出错时已解析的书签照常写入（已取消时丢弃）
+                writer.flush();
+                onImported(userId, response);
             }
 
-            log.info("浏览器书签导入完成: userId={}, success={}, skipped={}, failed={}, categories={}",
+            log.info("浏览器书签导入完成: userId={}, success={}, skipped={}, failed={}, categories={}, chunkSize={}",
                     userId, response.getSuccessCount(), response.getSkippedCount(),
-                    response.getFailedCount(), response.getCategoriesCreated());
+                    response.getFailedCount(), response.getCategoriesCreated(), importChunkSize);
+        } catch (CancellationException e) {
+            log.info("浏览器书签导入已取消: userId={}, success={}", userId, response.getSuccessCount());
+            response.addMessage(e.getMessage());
         } catch (Exception e) {
             log.error("浏览器书签导入失败: {}", e.getMessage(), e);
             response.addMessage("导入失败: " + e.getMessage());
@@ -230,84 +280,88 @@ public class DataManagementServiceImpl implements DataManagementService {
     }
 
     /**
-     * 递归解析 HTML 并导入书签
+     * 预读文件头判断是否为 Netscape 书签文件，读取后复位
      */
-    private void parseAndImportHtml(String html, Long userId, Long categoryId,
-            Set<String> existingUrls, Map<String, Category> categoryMap,
-            ImportResponse response, List<Bookmark> importedBookmarks) {
-        // 简化的解析：按行处理
-        String[] lines = html.split("\n");
-        Long currentCategoryId = categoryId;
-        Stack<Long> categoryStack = new Stack<>();
-        if (categoryId != null) {
-            categoryStack.push(categoryId);
+    private boolean isNetscapeBookmarkFile(BufferedReader in) throws IOException {
+        in.mark(HEADER_PEEK_CHARS);
+        char[] head = new char[HEADER_PEEK_CHARS];
+        int length = 0;
+        int n;
+        while (length < head.length && (n = in.read(head, length, head.length - length)) != -1) {
+            length += n;
         }
+        in.reset();
+        return new String(head, 0, length).toUpperCase().contains("NETSCAPE-BOOKMARK-FILE");
+    }
 
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i].trim();
+    /**
+     * 浏览器书签解析事件处理：维护当前分类，书签交给批量写入器去重写入
+     */
+    private class BrowserImportHandler implements NetscapeBookmarkParser.Handler {
+        private final Long userId;
+        private final Map<String, Category> categoryMap;
+        private final ImportResponse response;
+        private final ImportChunkWriter writer;
+
+        /**
+         * 文件夹对应的分类ID，特殊文件夹沿用上级分类（可能为 null）
+         */
+        private final Stack<Long> categoryStack = new Stack<>();
+
+        BrowserImportHandler(Long userId, Map<String, Category> categoryMap, ImportResponse response,
+                ImportChunkWriter writer) {
+            this.userId = userId;
+            this.categoryMap = categoryMap;
+            this.response = response;
+            this.writer = writer;
+        }
 
-            try {
-                // 检测文件夹开始
-                Matcher folderMatcher = FOLDER_PATTERN.matcher(line);
-                if (folderMatcher.find()) {
-                    String folderName = folderMatcher.group(1).trim();
-                    // 跳过特殊文件夹名称
-                    if (isSpecialFolder(folderName)) {
-                        continue;
-                    }
+        private Long currentCategoryId() {
+            return categoryStack.isEmpty() ? null : categoryStack.peek();
+        }
 
+        @Override
+        public void onFolderStart(String name) {
+            Long categoryId = currentCategoryId();
+            // 跳过特殊文件夹名称
+            if (name != null && !name.isEmpty() && !isSpecialFolder(name)) {
+                try {
                     // 查找或创建分类
-                    Category category = categoryMap.get(folderName.toLowerCase());
+                    Category category = categoryMap.get(name.toLowerCase());
                     if (category == null) {
-                        category = createCategory(userId, folderName);
-                        categoryMap.put(folderName.toLowerCase(), category);
+                        category = createCategory(userId, name);
+                        categoryMap.put(name.toLowerCase(), category);
                         response.incrementCategoriesCreated();
                     }
-                    categoryStack.push(category.getId());
-                    currentCategoryId = category.getId();
-                    continue;
-                }
-
-                // 检测 DL 结束（退出当前文件夹）
-                if (DL_END.matcher(line).find() && !categoryStack.isEmpty()) {
-                    categoryStack.pop();
-                    currentCategoryId = categoryStack.isEmpty() ? null : categoryStack.peek();
+                    categoryId = category.getId();
+                } catch (Exception e) {
+                    log.error("导入分类失败: name={}, error={}", name, e.getMessage());
                 }
+            }
+            categoryStack.push(categoryId);
+        }
 
-                // 检测书签
-                Matcher bookmarkMatcher = BOOKMARK_PATTERN.matcher(line);
-                if (bookmarkMatcher.find()) {
-                    String url = bookmarkMatcher.group(1);
-                    String addDateStr = bookmarkMatcher.group(2);
-                    String title = bookmarkMatcher.group(3).trim();
-
-                    // 验证 URL
-                    if (url == null || url.isEmpty()) {
-                        response.incrementSkipped();
-                        continue;
-                    }
+        @Override
+        public void onFolderEnd() {
+            if (!categoryStack.isEmpty()) {
+                categoryStack.pop();
+            }
+        }
 
-                    // 检查重复
-                    String normalizedUrl = normalizeUrl(url);
-                    if (existingUrls.contains(normalizedUrl)) {
-                        response.incrementSkipped();
-                        continue;
-                    }
+        @Override
+        public void onBookmark(String url, String title, String addDate) {
+            // 断点之前的条目已在上次执行中处理
+            if (!writer.nextEntry()) {
+                return;
+            }
 
-                    try {
-                        Bookmark bookmark = createBookmark(userId, url, title, addDateStr, currentCategoryId);
-                        existingUrls.add(normalizedUrl);
-                        importedBookmarks.add(bookmark);
-                        response.incrementSuccess();
-                    } catch (Exception e) {
-                        response.incrementFailed();
-                        response.addMessage("导入失败: " + title + " - " + e.getMessage());
-                        log.error("导入书签失败: title={}, error={}", title, e.getMessage());
-                    }
-                }
-            } catch (Exception e) {
-                log.error("解析行失败: line={}, error={}", i, e.getMessage());
+            // 验证 URL
+            if (url == null || url.isEmpty()) {
+                response.incrementSkipped();
+                return;
             }
+
+            writer.add(buildBookmark(userId, url, title, addDate, currentCategoryId()));
         }
     }
 
@@ -345,58 +399,169 @@ public class DataManagementServiceImpl implements DataManagementService {
     }
 
     /**
-     * 创建书签
+     * 构建导入的书签（不写库）
+     * 多行 INSERT 不经过自动填充，创建和更新时间在这里设置
      */
-    private Bookmark createBookmark(Long userId, String url, String title, String addDateStr, Long categoryId) {
+    private Bookmark buildBookmark(Long userId, String url, String title, String addDateStr, Long categoryId) {
+        LocalDateTime now = LocalDateTime.now();
+        Bookmark bookmark = new Bookmark();
+        bookmark.setUserId(userId);
+        bookmark.setUrl(url);
+        bookmark.setUrlHash(UrlHashUtils.hash(url));
+        bookmark.setTitle(title == null || title.isEmpty() ? url : title);
+        bookmark.setCategoryId(categoryId);
+        bookmark.setIsFavorite(0);
+        bookmark.setVisitCount(0);
+        bookmark.setSortOrder(0);
+        bookmark.setIsPinned(0);
+        bookmark.setStatus(1);
+        bookmark.setCreateTime(now);
+        bookmark.setUpdateTime(now);
+
+        // 尝试设置创建时间
+        if (addDateStr != null && !addDateStr.isEmpty()) {
+            try {
+                long timestamp = Long.parseLong(addDateStr);
+                LocalDateTime createTime = LocalDateTime.ofInstant(
+                        Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
+                bookmark.setCreateTime(createTime);
+            } catch (Exception e) {
+                log.warn("解析时间戳失败: {}", addDateStr);
+            }
+        }
+
+        // 设置图标
         try {
-            Bookmark bookmark = new Bookmark();
-            bookmark.setUserId(userId);
-            bookmark.setUrl(url);
-            bookmark.setTitle(title.isEmpty() ? url : title);
-            bookmark.setCategoryId(categoryId);
-            bookmark.setIsFavorite(0);
-            bookmark.setVisitCount(0);
-            bookmark.setSortOrder(0);
-            bookmark.setStatus(1);
-
-            // 尝试设置创建时间
-            if (addDateStr != null && !addDateStr.isEmpty()) {
-                try {
-                    long timestamp = Long.parseLong(addDateStr);
-                    LocalDateTime createTime = LocalDateTime.ofInstant(
-                            Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
-                    bookmark.setCreateTime(createTime);
-                } catch (Exception e) {
-                    log.warn("解析时间戳失败: {}", addDateStr);
-                }
+            String domain = url.replaceAll("(https?://[^/]+).*", "$1");
+            bookmark.setIconUrl(domain + "/favicon.ico");
+        } catch (Exception e) {
+            bookmark.setIconUrl(null);
+        }
+        return bookmark;
+    }
+
+    /**
+     * 导入书签的批量写入器
+     * - 缓冲解析出的书签，满 chunk-size 后一条多行 INSERT 写入并单独提交，避免整个导入占用一个长事务
+     * - 写入前按 URL 哈希整批查一次索引去重，不加载用户已有的全部书签；之前的批次已提交，文件内跨批重复同样能查到
+     * - 每批提交后用一次 bulk 请求写入 ES
+     * - 整批写入失败时逐条重试，只有出错的书签计为失败
+     */
+    private class ImportChunkWriter {
+        private final Long userId;
+        private final ImportResponse response;
+        private final ImportCheckpoint checkpoint;
+
+        /**
+         * URL 哈希 -> 待写入书签，同批内重复的链接只保留第一个
+         */
+        private final Map<String, Bookmark> buffer = new LinkedHashMap<>();
+
+        /**
+         * 已读取的源书签条数
+         */
+        private int processed;
+
+        ImportChunkWriter(Long userId, ImportResponse response, ImportCheckpoint checkpoint) {
+            this.userId = userId;
+            this.response = response;
+            this.checkpoint = checkpoint;
+        }
+
+        /**
+         * 读取下一条源书签，返回 false 表示该条在断点之前，应跳过
+         */
+        boolean nextEntry() {
+            processed++;
+            checkpoint.onEntry(processed);
+            return processed > checkpoint.getResumeFrom();
+        }
+
+        void add(Bookmark bookmark) {
+            if (buffer.putIfAbsent(bookmark.getUrlHash(), bookmark) != null) {
+                response.incrementSkipped();
+                return;
+            }
+            if (buffer.size() >= importChunkSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            Map<String, Bookmark> pending = new LinkedHashMap<>(buffer);
+            buffer.clear();
+            if (checkpoint.isCancelled()) {
+                return;
             }
 
-            // 设置图标
+            // 跳过已存在的链接
+            bookmarkMapper.selectExistingUrlHashes(userId, pending.keySet()).forEach(hash -> {
+                pending.remove(hash);
+                response.incrementSkipped();
+            });
+            List<Bookmark> chunk = new ArrayList<>(pending.values());
+            if (chunk.isEmpty()) {
+                checkpoint.onChunkCommitted(processed, response);
+                return;
+            }
+
+            int before = response.getSuccessCount();
             try {
-                String domain = url.replaceAll("(https?://[^/]+).*", "$1");
-                bookmark.setIconUrl(domain + "/favicon.ico");
+                transactionTemplate.executeWithoutResult(status -> {
+                    bookmarkMapper.insertBatch(chunk);
+                    searchIndexQueue.indexBatch(chunk);
+                    // 断点与本批书签在同一事务中提交
+                    response.addSuccess(chunk.size());
+                    checkpoint.onChunkCommitted(processed, response);
+                });
+            } catch (CancellationException e) {
+                response.setSuccessCount(before);
+                throw e;
             } catch (Exception e) {
-                bookmark.setIconUrl(null);
+                response.setSuccessCount(before);
+                log.warn("批量导入书签失败，逐条重试: size={}, error={}", chunk.size(), e.getMessage());
+                insertOneByOne(chunk);
             }
+        }
 
-            bookmarkMapper.insert(bookmark);
-            return bookmark;
-        } catch (Exception e) {
-            log.error("创建书签失败: url={}, error={}", url, e.getMessage(), e);
-            throw new RuntimeException("创建书签失败");
+        private void insertOneByOne(List<Bookmark> chunk) {
+            List<Bookmark> inserted = new ArrayList<>();
+            for (Bookmark bookmark : chunk) {
+                try {
+                    bookmark.setId(null);
+                    bookmarkMapper.insert(bookmark);
+                    inserted.add(bookmark);
+                    response.incrementSuccess();
+                } catch (Exception e) {
+                    response.incrementFailed();
+                    response.addMessage("导入失败: " + bookmark.getTitle() + " - " + e.getMessage());
+                    log.error("导入书签失败: title={}, error={}", bookmark.getTitle(), e.getMessage());
+                }
+            }
+            searchIndexQueue.indexBatch(inserted);
+            checkpoint.onChunkCommitted(processed, response);
+        }
+    }
+
+    /**
+     * 导入完成后刷新分类缓存（新分类和分类书签数量）
+     */
+    private void onImported(Long userId, ImportResponse response) {
+        if (response.getSuccessCount() > 0 || response.getCategoriesCreated() > 0) {
+            categoryCacheService.invalidateUserCategoriesCache(userId);
         }
     }
 
     /**
      * 从本应用 JSON 格式导入
      */
-    private ImportResponse importFromJson(String jsonContent) {
+    private ImportResponse importFromJson(Long userId, String jsonContent, ImportCheckpoint checkpoint) {
         ImportResponse response = new ImportResponse();
 
         try {
-            User currentUser = userService.getCurrentUser();
-            Long userId = currentUser.getId();
-
             JSONObject json = JSONUtil.parseObj(jsonContent);
 
             // 验证格式
@@ -405,13 +570,11 @@ public class DataManagementServiceImpl implements DataManagementService {
                 return response;
             }
 
-            // 获取现有 URL
-            Set<String> existingUrls = new HashSet<>();
-            bookmarkMapper.selectList(
-                    new QueryWrapper<Bookmark>()
-                            .eq("user_id", userId)
-                            .eq("status", 1))
-                    .forEach(b -> existingUrls.add(normalizeUrl(b.getUrl())));
+            // 一次预加载现有分类（按名称索引）
+            Map<String, Category> categoryMap = new HashMap<>();
+            categoryMapper.selectList(
+                    new QueryWrapper<Category>().eq("user_id", userId))
+                    .forEach(c -> categoryMap.put(c.getName().toLowerCase(), c));
 
             // 导入分类（建立旧ID到新分类的映射）
             Map<Long, Long> categoryIdMap = new HashMap<>();
@@ -424,10 +587,7 @@ public class DataManagementServiceImpl implements DataManagementService {
                         String name = cat.getStr("name");
 
                         // 检查是否已存在
-                        Category existing = categoryMapper.selectOne(
-                                new QueryWrapper<Category>()
-                                        .eq("user_id", userId)
-                                        .eq("name", name));
+                        Category existing = name != null ? categoryMap.get(name.toLowerCase()) : null;
 
                         if (existing != null) {
                             categoryIdMap.put(oldId, existing.getId());
@@ -439,6 +599,7 @@ public class DataManagementServiceImpl implements DataManagementService {
                             newCat.setIcon(cat.getStr("icon"));
                             newCat.setSortOrder(cat.getInt("sortOrder", 0));
                             categoryMapper.insert(newCat);
+                            categoryMap.put(name.toLowerCase(), newCat);
                             categoryIdMap.put(oldId, newCat.getId());
                             response.incrementCategoriesCreated();
                         }
@@ -448,11 +609,15 @@ public class DataManagementServiceImpl implements DataManagementService {
                 }
             }
 
-            // 导入书签
-            List<Bookmark> importedBookmarks = new ArrayList<>();
+            // 导入书签（按批写入）
+            ImportChunkWriter writer = new ImportChunkWriter(userId, response, checkpoint);
             JSONArray bookmarks = json.getJSONArray("bookmarks");
-            if (bookmarks != null) {
-                for (int i = 0; i < bookmarks.size(); i++) {
+            try {
+                for (int i = 0; bookmarks != null && i < bookmarks.size(); i++) {
+                    // 断点之前的条目已在上次执行中处理
+                    if (!writer.nextEntry()) {
+                        continue;
+                    }
                     try {
                         JSONObject bm = bookmarks.getJSONObject(i);
                         String url = bm.getStr("url");
@@ -462,14 +627,11 @@ public class DataManagementServiceImpl implements DataManagementService {
                             continue;
                         }
 
-                        if (existingUrls.contains(normalizeUrl(url))) {
-                            response.incrementSkipped();
-                            continue;
-                        }
-
+                        LocalDateTime now = LocalDateTime.now();
                         Bookmark bookmark = new Bookmark();
                         bookmark.setUserId(userId);
                         bookmark.setUrl(url);
+                        bookmark.setUrlHash(UrlHashUtils.hash(url));
                         bookmark.setTitle(bm.getStr("title", url));
                         bookmark.setDescription(bm.getStr("description"));
                         bookmark.setIconUrl(bm.getStr("iconUrl"));
@@ -484,32 +646,29 @@ public class DataManagementServiceImpl implements DataManagementService {
                         bookmark.setIsFavorite(bm.getInt("isFavorite", 0));
                         bookmark.setVisitCount(0); // 重置访问计数
                         bookmark.setSortOrder(bm.getInt("sortOrder", 0));
+                        bookmark.setIsPinned(0);
                         bookmark.setStatus(1);
+                        bookmark.setCreateTime(now);
+                        bookmark.setUpdateTime(now);
 
-                        bookmarkMapper.insert(bookmark);
-                        existingUrls.add(normalizeUrl(url));
-                        importedBookmarks.add(bookmark);
-                        response.incrementSuccess();
+                        writer.add(bookmark);
                     } catch (Exception e) {
                         response.incrementFailed();
                         log.error("导入书签失败: index={}, error={}", i, e.getMessage());
                     }
                 }
+            } finally {
+                writer.flush();
+                onImported(userId, response);
             }
 
-            // 批量同步到 ES
-            if (!importedBookmarks.isEmpty()) {
-                try {
-                    searchService.syncAllBookmarks(importedBookmarks);
-                } catch (Exception e) {
-                    log.error("批量同步到 ES 失败: {}", e.getMessage(), e);
-                }
-            }
-
-            log.info("JSON 导入完成: userId={}, success={}, skipped={}, failed={}, categories={}",
+            log.info("JSON 导入完成: userId={}, success={}, skipped={}, failed={}, categories={}, chunkSize={}",
                     userId, response.getSuccessCount(), response.getSkippedCount(),
-                    response.getFailedCount(), response.getCategoriesCreated());
+                    response.getFailedCount(), response.getCategoriesCreated(), importChunkSize);
 
+        } catch (CancellationException e) {
+            log.info("JSON 导入已取消: userId={}, success={}", userId, response.getSuccessCount());
+            response.addMessage(e.getMessage());
         } catch (Exception e) {
             log.error("JSON 解析失败: {}", e.getMessage(), e);
             response.addMessage("JSON 解析错误: " + e.getMessage());
@@ -518,18 +677,6 @@ public class DataManagementServiceImpl implements DataManagementService {
         return response;
     }
 
-    /**
-     * 规范化 URL 用于去重比较
-     */
-    private String normalizeUrl(String url) {
-        if (url == null)
-            return "";
-        return url.toLowerCase()
-                .replaceAll("^https?://", "")
-                .replaceAll("^www\\.", "")
-                .replaceAll("/$", "");
-    }
-
     /**
      * 生成随机颜色
      */
@@ -0,0 +1,28 @@
+package com.bookmark.service.impl;
+
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
+import com.bookmark.service.SearchEngine;
+import com.bookmark.service.SearchService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Elasticsearch 搜索引擎
+ */
+@Service
+public class ElasticsearchSearchEngine implements SearchEngine {
+
+    @Autowired
+    private SearchService searchService;
+
+    @Override
+    public String getName() {
+        return "elasticsearch";
+    }
+
+    @Override
+    public SearchResponse search(Long userId, SearchRequest request) {
+        return searchService.search(userId, request);
+    }
+}
@@ -0,0 +1,690 @@
+package com.bookmark.service.impl;
+
+import cn.hutool.cache.CacheUtil;
+import cn.hutool.cache.impl.LRUCache;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
+import com.bookmark.entity.Bookmark;
+import com.bookmark.entity.BookmarkDocument;
+import com.bookmark.mapper.BookmarkMapper;
+import com.bookmark.service.SearchEngine;
+import com.bookmark.util.HighlightUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内搜索引擎（小用户）
+ * - 书签数不超过 max-bookmarks 的用户，首次搜索时从 MySQL 加载并构建倒排索引，之后在本地完成搜索
+ * - 分词：中日韩文字按二元组（单字成词时为单字），字母数字按整词，查询中的字母数字词按前缀匹配
+ * - 字段权重：标题 3、标签 2、描述 1、URL 1；查询中每个词都必须命中
+ * - 所有用户的索引按 LRU 淘汰，估算内存不超过 memory-budget-mb
+ * - 书签变化由 SearchIndexQueue 批量推送，已缓存用户的索引增量更新
+ */
+@Slf4j
+@Service
+public class LocalSearchEngine implements SearchEngine {
+
+    private static final String CURSOR_PREFIX = "l";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int FRAGMENT_SIZE = 100;
+    private static final int DOMAIN_AGG_SIZE = 20;
+
+    private static final int WEIGHT_TITLE = 3;
+    private static final int WEIGHT_TAGS = 2;
+    private static final int WEIGHT_DESCRIPTION = 1;
+    private static final int WEIGHT_URL = 1;
+
+    @Autowired
+    private BookmarkMapper bookmarkMapper;
+
+    @Value("${bookmark.search.local.max-bookmarks:1000}")
+    private int maxBookmarks;
+
+    @Value("${bookmark.search.local.memory-budget-mb:64}")
+    private long memoryBudgetMb;
+
+    /**
+     * 用户ID -> 索引，按访问顺序排列，超出内存预算时淘汰最久未使用的
+     */
+    private final LinkedHashMap<Long, UserIndex> indexes = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * 正在构建索引的用户，构建期间收到的变更先暂存，构建完成后回放
+     */
+    private final Map<Long, List<Bookmark>> building = new ConcurrentHashMap<>();
+
+    /**
+     * 构建锁（按用户ID分段），同一用户同时只有一个线程构建索引，其余线程等待后直接使用构建结果
+     */
+    private final Object[] buildLocks = new Object[64];
+
+    /**
+     * 书签数超过上限的用户，短时间内不再重复统计
+     */
+    private LRUCache<Long, Boolean> largeUsers;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong searchNanos = new AtomicLong();
+    private final AtomicLong builds = new AtomicLong();
+    private final AtomicLong buildNanos = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        this.largeUsers = CacheUtil.newLRUCache(10000, 10 * 60 * 1000);
+        for (int i = 0; i < buildLocks.length; i++) {
+            buildLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    /**
+     * 用户是否由本地索引服务（已缓存，或书签数不超过上限）
+     */
+    public boolean canServe(Long userId) {
+        synchronized (indexes) {
+            if (indexes.containsKey(userId)) {
+                return true;
+            }
+        }
+        if (largeUsers.containsKey(userId)) {
+            return false;
+        }
+        long count = bookmarkMapper.selectCount(new QueryWrapper<Bookmark>()
+                .eq("user_id", userId)
+                .eq("status", 1));
+        if (count > maxBookmarks) {
+            largeUsers.put(userId, Boolean.TRUE);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 是否为本引擎生成的翻页游标
+     */
+    public boolean isOwnCursor(String cursor) {
+        return cursor != null && cursor.startsWith(CURSOR_PREFIX);
+    }
+
+    @Override
+    public SearchResponse search(Long userId, SearchRequest request) {
+        int size = request.getSize() == null ? DEFAULT_PAGE_SIZE
+                : Math.max(1, Math.min(request.getSize(), MAX_PAGE_SIZE));
+        int offset = decodeCursor(request.getCursor());
+        UserIndex index = getOrBuild(userId);
+
+        long start = System.nanoTime();
+        List<String> queryTerms = HighlightUtils.splitTerms(request.getKeyword(), "");
+        List<Hit> hits = index.search(queryTerms, request);
+
+        SearchResponse response = new SearchResponse();
+        response.setTotal(hits.size());
+        Map<String, Long> domainCounts = new HashMap<>();
+        for (Hit hit : hits) {
+            if (hit.doc.getCategoryId() != null) {
+                response.getCategoryCounts().merge(hit.doc.getCategoryId(), 1L, Long::sum);
+            }
+            if (hit.doc.getDomain() != null) {
+                domainCounts.merge(hit.doc.getDomain(), 1L, Long::sum);
+            }
+        }
+        domainCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(DOMAIN_AGG_SIZE)
+                .forEach(e -> response.getDomainCounts().put(e.getKey(), e.getValue()));
+
+        for (Hit hit : hits.subList(Math.min(offset, hits.size()), Math.min(offset + size, hits.size()))) {
+            SearchResponse.Item item = new SearchResponse.Item();
+            item.setBookmark(hit.doc);
+            item.setHighlights(highlight(hit.doc, queryTerms));
+            item.setScore(queryTerms.isEmpty() ? null : (float) hit.score);
+            response.getItems().add(item);
+        }
+        if (offset + size < hits.size()) {
+            response.setNextCursor(CURSOR_PREFIX + (offset + size));
+        }
+
+        searches.incrementAndGet();
+        searchNanos.addAndGet(System.nanoTime() - start);
+        return response;
+    }
+
+    /**
+     * 应用书签变更（来自索引队列，包含已删除的书签）
+     *
+     * @param bookmarks  变更后的书签
+     * @param missingIds 数据库中已不存在的书签ID
+     */
+    public void onBookmarksChanged(Collection<Bookmark> bookmarks, Collection<Long> missingIds) {
+        Map<Long, List<Bookmark>> byUser = new HashMap<>();
+        for (Bookmark bookmark : bookmarks) {
+            byUser.computeIfAbsent(bookmark.getUserId(), k -> new ArrayList<>()).add(bookmark);
+        }
+
+        byUser.forEach((userId, changes) -> {
+            List<Bookmark> pending = building.get(userId);
+            if (pending != null) {
+                synchronized (pending) {
+                    pending.addAll(changes);
+                }
+            }
+            UserIndex index;
+            synchronized (indexes) {
+                index = indexes.get(userId);
+            }
+            if (index != null) {
+                index.apply(changes);
+                if (index.size() > maxBookmarks) {
+                    // 用户已超过本地索引上限，交给 ES
+                    remove(userId);
+                    largeUsers.put(userId, Boolean.TRUE);
+                } else {
+                    updateBytes(userId, index);
+                }
+            }
+        });
+
+        if (!missingIds.isEmpty()) {
+            List<Map.Entry<Long, UserIndex>> cached;
+            synchronized (indexes) {
+                cached = new ArrayList<>(indexes.entrySet());
+            }
+            for (Map.Entry<Long, UserIndex> entry : cached) {
+                if (entry.getValue().removeAll(missingIds)) {
+                    updateBytes(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取本地索引运行指标
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        synchronized (indexes) {
+            stats.put("users", indexes.size());
+            stats.put("estimatedBytes", totalBytes);
+        }
+        stats.put("memoryBudgetBytes", memoryBudgetMb * 1024 * 1024);
+        stats.put("searches", searches.get());
+        stats.put("avgSearchMicros", searches.get() == 0 ? 0 : searchNanos.get() / searches.get() / 1000);
+        stats.put("builds", builds.get());
+        stats.put("avgBuildMicros", builds.get() == 0 ? 0 : buildNanos.get() / builds.get() / 1000);
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private UserIndex getOrBuild(Long userId) {
+        synchronized (indexes) {
+            UserIndex index = indexes.get(userId);
+            if (index != null) {
+                return index;
+            }
+        }
+
+        synchronized (buildLocks[Math.floorMod(userId.hashCode(), buildLocks.length)]) {
+            // 等待期间其他线程可能已完成构建
+            synchronized (indexes) {
+                UserIndex index = indexes.get(userId);
+                if (index != null) {
+                    return index;
+                }
+            }
+            return build(userId);
+        }
+    }
+
+    /**
+     * 从数据库构建用户索引（调用方持有该用户的构建锁）
+     */
+    private UserIndex build(Long userId) {
+        List<Bookmark> pending = new ArrayList<>();
+        building.put(userId, pending);
+        try {
+            long start = System.nanoTime();
+            List<Bookmark> bookmarks = bookmarkMapper.selectList(new QueryWrapper<Bookmark>()
+                    .select("id", "user_id", "title", "url", "description", "tags", "icon_url",
+                            "category_id", "is_favorite", "create_time", "status")
+                    .eq("user_id", userId)
+                    .eq("status", 1));
+            UserIndex index = new UserIndex();
+            index.apply(bookmarks);
+            builds.incrementAndGet();
+            buildNanos.addAndGet(System.nanoTime() - start);
+
+            // 回放构建期间的变更并发布索引；发布后的变更直接应用到索引
+            synchronized (pending) {
+                index.apply(pending);
+                synchronized (indexes) {
+                    UserIndex existing = indexes.get(userId);
+                    if (existing != null) {
+                        return existing;
+                    }
+                    indexes.put(userId, index);
+                }
+                building.remove(userId, pending);
+            }
+            updateBytes(userId, index);
+            log.debug("本地搜索索引已构建: userId={}, docs={}, terms={}", userId, index.size(), index.termCount());
+            return index;
+        } finally {
+            building.remove(userId, pending);
+        }
+    }
+
+    private void remove(Long userId) {
+        synchronized (indexes) {
+            UserIndex index = indexes.remove(userId);
+            if (index != null) {
+                totalBytes -= index.bytes;
+            }
+        }
+    }
+
+    /**
+     * 重新估算索引占用，并按 LRU 淘汰直到回到内存预算内
+     */
+    private void updateBytes(Long userId, UserIndex index) {
+        long bytes = index.estimateBytes();
+        long budget = memoryBudgetMb * 1024 * 1024;
+        synchronized (indexes) {
+            if (indexes.get(userId) != index) {
+                return;
+            }
+            totalBytes += bytes - index.bytes;
+            index.bytes = bytes;
+
+            Iterator<Map.Entry<Long, UserIndex>> iterator = indexes.entrySet().iterator();
+            while (totalBytes > budget && iterator.hasNext()) {
+                Map.Entry<Long, UserIndex> eldest = iterator.next();
+                if (eldest.getKey().equals(userId)) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue().bytes;
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        if (!isOwnCursor(cursor)) {
+            throw new IllegalArgumentException("翻页游标已失效，请重新搜索");
+        }
+        try {
+            return Math.max(0, Integer.parseInt(cursor.substring(CURSOR_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的翻页游标");
+        }
+    }
+
+    private Map<String, List<String>> highlight(BookmarkDocument doc, List<String> terms) {
+        Map<String, List<String>> highlights = new HashMap<>();
+        if (terms.isEmpty()) {
+            return highlights;
+        }
+        String title = HighlightUtils.mark(doc.getTitle(), terms, Integer.MAX_VALUE);
+        if (title != null) {
+            highlights.put("title", List.of(title));
+        }
+        String description = HighlightUtils.mark(doc.getDescription(), terms, FRAGMENT_SIZE);
+        if (description != null) {
+            highlights.put("description", List.of(description));
+        }
+        String tags = HighlightUtils.mark(doc.getTags(), terms, FRAGMENT_SIZE);
+        if (tags != null) {
+            highlights.put("tags", List.of(tags));
+        }
+        return highlights;
+    }
+
+    /**
+     * 分词：中日韩文字连续片段切为二元组，字母数字连续片段作为整词，其余字符为分隔符
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0;
+        while (i < lower.length()) {
+            char c = lower.charAt(i);
+            if (isCjk(c)) {
+                int end = i;
+                while (end < lower.length() && isCjk(lower.charAt(end))) {
+                    end++;
+                }
+                if (end - i == 1) {
+                    tokens.add(lower.substring(i, end));
+                } else {
+                    for (int j = i; j + 2 <= end; j++) {
+                        tokens.add(lower.substring(j, j + 2));
+                    }
+                }
+                i = end;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i;
+                while (end < lower.length() && Character.isLetterOrDigit(lower.charAt(end)) && !isCjk(lower.charAt(end))) {
+                    end++;
+                }
+                tokens.add(lower.substring(i, end));
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isCjk(char c) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(c);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 搜索命中
+     */
+    private static class Hit {
+        final BookmarkDocument doc;
+        final int score;
+
+        Hit(BookmarkDocument doc, int score) {
+            this.doc = doc;
+            this.score = score;
+        }
+    }
+
+    /**
+     * 倒排表：文档槽位与词权重并列存放在 int 数组中
+     */
+    private static class Postings {
+        int[] slots = new int[4];
+        int[] weights = new int[4];
+        int size;
+
+        void add(int slot, int weight) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            slots[size] = slot;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    size--;
+                    slots[i] = slots[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 单个用户的倒排索引
+     * 删除的文档只清空槽位，空槽超过一半时整体压缩
+     */
+    private static class UserIndex {
+        private final List<BookmarkDocument> docs = new ArrayList<>();
+        private final List<String[]> docTerms = new ArrayList<>();
+        private final Map<Long, Integer> slotById = new HashMap<>();
+        private final TreeMap<String, Postings> terms = new TreeMap<>();
+        private int freeSlots;
+        long bytes;
+
+        synchronized int size() {
+            return slotById.size();
+        }
+
+        synchronized int termCount() {
+            return terms.size();
+        }
+
+        synchronized void apply(Collection<Bookmark> bookmarks) {
+            for (Bookmark bookmark : bookmarks) {
+                removeDoc(bookmark.getId());
+                if (Integer.valueOf(1).equals(bookmark.getStatus())) {
+                    addDoc(bookmark);
+                }
+            }
+            compactIfNeeded();
+        }
+
+        synchronized boolean removeAll(Collection<Long> ids) {
+            boolean changed = false;
+            for (Long id : ids) {
+                changed |= removeDoc(id);
+            }
+            compactIfNeeded();
+            return changed;
+        }
+
+        synchronized List<Hit> search(List<String> queryWords, SearchRequest request) {
+            long startMillis = request.getStartDate() != null
+                    ? toEpochMillis(request.getStartDate().atStartOfDay()) : Long.MIN_VALUE;
+            long endMillis = request.getEndDate() != null
+                    ? toEpochMillis(request.getEndDate().plusDays(1).atStartOfDay()) : Long.MAX_VALUE;
+
+            int[] scores = null;
+            if (!queryWords.isEmpty()) {
+                scores = new int[docs.size()];
+                boolean first = true;
+                for (String word : queryWords) {
+                    for (String token : tokenize(word)) {
+                        int[] tokenScores = matchToken(token);
+                        // 每个词都必须命中：与已有结果求交
+                        for (int slot = 0; slot < scores.length; slot++) {
+                            if (tokenScores[slot] == 0) {
+                                scores[slot] = -1;
+                            } else if (first || scores[slot] > 0) {
+                                scores[slot] = (first ? 0 : scores[slot]) + tokenScores[slot];
+                            }
+                        }
+                        first = false;
+                    }
+                }
+                if (first) {
+                    // 关键词中没有可索引的字符
+                    return new ArrayList<>();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>();
+            for (int slot = 0; slot < docs.size(); slot++) {
+                BookmarkDocument doc = docs.get(slot);
+                if (doc == null || (scores != null && scores[slot] <= 0)) {
+                    continue;
+                }
+                if (request.getCategoryId() != null && !request.getCategoryId().equals(doc.getCategoryId())) {
+                    continue;
+                }
+                if (request.getIsFavorite() != null && !request.getIsFavorite().equals(doc.getIsFavorite())) {
+                    continue;
+                }
+                long created = toEpochMillis(doc.getCreateTime());
+                if (created < startMillis || created >= endMillis) {
+                    continue;
+                }
+                hits.add(new Hit(doc, scores != null ? scores[slot] : 0));
+            }
+
+            Comparator<Hit> byId = Comparator.comparing((Hit h) -> h.doc.getId()).reversed();
+            if (scores != null) {
+                hits.sort(Comparator.comparingInt((Hit h) -> h.score).reversed().thenComparing(byId));
+            } else {
+                hits.sort(Comparator.comparingLong((Hit h) -> toEpochMillis(h.doc.getCreateTime())).reversed()
+                        .thenComparing(byId));
+            }
+            return hits;
+        }
+
+        /**
+         * 单个查询词元的命中得分（按槽位）：
+         * 字母数字词按前缀匹配；单个中日韩字符匹配包含该字的词元；二元组精确匹配
+         */
+        private int[] matchToken(String token) {
+            int[] tokenScores = new int[docs.size()];
+            Collection<Postings> matched;
+            if (token.length() == 1 && isCjk(token.charAt(0))) {
+                matched = new ArrayList<>();
+                for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                    if (entry.getKey().indexOf(token.charAt(0)) >= 0) {
+                        matched.add(entry.getValue());
+                    }
+                }
+            } else if (isCjk(token.charAt(0))) {
+                Postings postings = terms.get(token);
+                matched = postings != null ? List.of(postings) : List.of();
+            } else {
+                NavigableMap<String, Postings> range = terms.subMap(token, true, token + Character.MAX_VALUE, false);
+                matched = range.values();
+            }
+            for (Postings postings : matched) {
+                for (int i = 0; i < postings.size; i++) {
+                    int slot = postings.slots[i];
+                    tokenScores[slot] = Math.max(tokenScores[slot], postings.weights[i]);
+                }
+            }
+            return tokenScores;
+        }
+
+        private void addDoc(Bookmark bookmark) {
+            BookmarkDocument doc = BookmarkDocument.fromBookmark(bookmark);
+            Map<String, Integer> weights = new HashMap<>();
+            tokenize(doc.getTitle()).forEach(t -> weights.merge(t, WEIGHT_TITLE, Integer::sum));
+            tokenize(doc.getTags()).forEach(t -> weights.merge(t, WEIGHT_TAGS, Integer::sum));
+            tokenize(doc.getDescription()).forEach(t -> weights.merge(t, WEIGHT_DESCRIPTION, Integer::sum));
+            tokenize(doc.getUrl()).forEach(t -> weights.merge(t, WEIGHT_URL, Integer::sum));
+
+            int slot = docs.size();
+            docs.add(doc);
+            docTerms.add(weights.keySet().toArray(new String[0]));
+            slotById.put(doc.getId(), slot);
+            weights.forEach((term, weight) -> terms.computeIfAbsent(term, k -> new Postings()).add(slot, weight));
+        }
+
+        private boolean removeDoc(Long id) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return false;
+            }
+            for (String term : docTerms.get(slot)) {
+                Postings postings = terms.get(term);
+                if (postings != null) {
+                    postings.remove(slot);
+                    if (postings.size == 0) {
+                        terms.remove(term);
+                    }
+                }
+            }
+            docs.set(slot, null);
+            docTerms.set(slot, null);
+            freeSlots++;
+            return true;
+        }
+
+        private void compactIfNeeded() {
+            if (freeSlots == 0 || freeSlots * 2 < docs.size()) {
+                return;
+            }
+            List<BookmarkDocument> live = new ArrayList<>(slotById.size());
+            for (BookmarkDocument doc : docs) {
+                if (doc != null) {
+                    live.add(doc);
+                }
+            }
+            docs.clear();
+            docTerms.clear();
+            slotById.clear();
+            terms.clear();
+            freeSlots = 0;
+            for (BookmarkDocument doc : live) {
+                addDoc(toBookmark(doc));
+            }
+        }
+
+        private static Bookmark toBookmark(BookmarkDocument doc) {
+            Bookmark bookmark = new Bookmark();
+            bookmark.setId(doc.getId());
+            bookmark.setUserId(doc.getUserId());
+            bookmark.setTitle(doc.getTitle());
+            bookmark.setUrl(doc.getUrl());
+            bookmark.setDescription(doc.getDescription());
+            bookmark.setTags(doc.getTags());
+            bookmark.setIconUrl(doc.getIconUrl());
+            bookmark.setCategoryId(doc.getCategoryId());
+            bookmark.setIsFavorite(doc.getIsFavorite());
+            bookmark.setCreateTime(doc.getCreateTime());
+            bookmark.setStatus(1);
+            return bookmark;
+        }
+
+        /**
+         * 估算内存占用（字符串按 UTF-16 计，加上对象和集合的固定开销）
+         */
+        synchronized long estimateBytes() {
+            long total = 0;
+            for (BookmarkDocument doc : docs) {
+                if (doc == null) {
+                    continue;
+                }
+                total += 200;
+                total += length(doc.getTitle()) * 2L + length(doc.getUrl()) * 2L + length(doc.getDescription()) * 2L
+                        + length(doc.getTags()) * 2L + length(doc.getIconUrl()) * 2L + length(doc.getDomain()) * 2L;
+            }
+            for (Map.Entry<String, Postings> entry : terms.entrySet()) {
+                total += 96 + entry.getKey().length() * 2L + entry.getValue().slots.length * 8L;
+            }
+            return total;
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.bookmark.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.bookmark.dto.request.SearchRequest;
+import com.bookmark.dto.response.SearchResponse;
+import com.bookmark.entity.Bookmark;
+import com.bookmark.entity.BookmarkDocument;
+import com.bookmark.mapper.BookmarkMapper;
+import com.bookmark.service.SearchEngine;
+import com.bookmark.util.HighlightUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MySQL 全文搜索引擎（Elasticsearch 不可用时的降级实现）
+ * - 使用 ft_bookmark_text（ngram 解析器）全文索引，BOOLEAN MODE 短语匹配，中文无需分词
+ *   索引须在关闭停用词（innodb_ft_enable_stopword=OFF）时创建，见 sql/bookmark_performance.sql
+ * - 按相关度排序，偏移量游标翻页（游标以 "m" 开头，与 ES 游标区分）
+ * - 提供分类聚合；不提供域名聚合，高亮为标题/描述中关键词的简单标记
+ */
+@Slf4j
+@Service
+public class MysqlSearchEngine implements SearchEngine {
+
+    /**
+     * QueryWrapper 使用的全文匹配条件
+     */
+    private static final String FULLTEXT_MATCH = "MATCH(title, description, tags, url) AGAINST ({0} IN BOOLEAN MODE)";
+
+    private static final String CURSOR_PREFIX = "m";
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int FRAGMENT_SIZE = 100;
+
+    /**
+     * BOOLEAN MODE 的运算符，用户输入中的这些字符按分隔符处理
+     */
+    private static final String BOOLEAN_OPERATORS = "+-<>()~*\"@";
+
+    @Autowired
+    private BookmarkMapper bookmarkMapper;
+
+    @Override
+    public String getName() {
+        return "mysql";
+    }
+
+    @Override
+    public SearchResponse search(Long userId, SearchRequest request) {
+        int size = request.getSize() == null ? DEFAULT_PAGE_SIZE
+                : Math.max(1, Math.min(request.getSize(), MAX_PAGE_SIZE));
+        int offset = decodeCursor(request.getCursor());
+        String query = toBooleanQuery(request.getKeyword());
+        LocalDateTime startTime = request.getStartDate() != null ? request.getStartDate().atStartOfDay() : null;
+        LocalDateTime endTime = request.getEndDate() != null ? request.getEndDate().plusDays(1).atStartOfDay() : null;
+
+        List<Bookmark> bookmarks = bookmarkMapper.searchFulltext(userId, query, request.getCategoryId(),
+                request.getIsFavorite(), startTime, endTime, offset, size);
+
+        SearchResponse response = new SearchResponse();
+        response.setTotal(bookmarkMapper.countFulltext(userId, query, request.getCategoryId(),
+                request.getIsFavorite(), startTime, endTime));
+        List<String> terms = extractTerms(request.getKeyword());
+        for (Bookmark bookmark : bookmarks) {
+            SearchResponse.Item item = new SearchResponse.Item();
+            item.setBookmark(BookmarkDocument.fromBookmark(bookmark));
+            item.setHighlights(highlight(bookmark, terms));
+            response.getItems().add(item);
+        }
+        if (bookmarks.size() == size) {
+            response.setNextCursor(CURSOR_PREFIX + (offset + size));
+        }
+
+        for (Map<String, Object> row : bookmarkMapper.countFulltextByCategory(userId, query,
+                request.getCategoryId(), request.getIsFavorite(), startTime, endTime)) {
+            Object categoryId = row.get("category_id");
+            if (categoryId != null) {
+                response.getCategoryCounts().put(((Number) categoryId).longValue(), ((Number) row.get("cnt")).longValue());
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 为书签列表查询追加关键词条件（全文索引，替代 LIKE '%kw%' 全表扫描）
+     */
+    public void applyKeywordCondition(QueryWrapper<Bookmark> wrapper, String keyword) {
+        String query = toBooleanQuery(keyword);
+        if (query != null) {
+            wrapper.apply(FULLTEXT_MATCH, query);
+        }
+    }
+
+    /**
+     * 是否为本引擎生成的翻页游标
+     */
+    public boolean isOwnCursor(String cursor) {
+        return cursor != null && cursor.startsWith(CURSOR_PREFIX);
+    }
+
+    /**
+     * 将用户输入转换为 BOOLEAN MODE 表达式，每个词都必须出现：
+     * 两个字符以上的词按短语匹配（ngram 要求相邻），单个字符的词使用前缀匹配
+     */
+    private String toBooleanQuery(String keyword) {
+        List<String> terms = extractTerms(keyword);
+        if (terms.isEmpty()) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String term : terms) {
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            if (term.length() == 1) {
+                query.append('+').append(term).append('*');
+            } else {
+                query.append("+\"").append(term).append('"');
+            }
+        }
+        return query.toString();
+    }
+
+    private List<String> extractTerms(String keyword) {
+        return HighlightUtils.splitTerms(keyword, BOOLEAN_OPERATORS);
+    }
+
+    private int decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        if (!isOwnCursor(cursor)) {
+            throw new IllegalArgumentException("翻页游标已失效，请重新搜索");
+        }
+        try {
+            return Math.max(0, Integer.parseInt(cursor.substring(CURSOR_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的翻页游标");
+        }
+    }
+
+    private Map<String, List<String>> highlight(Bookmark bookmark, List<String> terms) {
+        Map<String, List<String>> highlights = new HashMap<>();
+        if (terms.isEmpty()) {
+            return highlights;
+        }
+        String title = HighlightUtils.mark(bookmark.getTitle(), terms, Integer.MAX_VALUE);
+        if (title != null) {
+            highlights.put("title", List.of(title));
+        }
+        String description = HighlightUtils.mark(bookmark.getDescription(), terms, FRAGMENT_SIZE);
+        if (description != null) {
+            highlights.put("description", List.of(description));
+        }
+        return highlights;
+    }
+}
@@ -8,6 +8,7 @@ import com.bookmark.entity.User;
 import com.bookmark.entity.UserSettings;
 import com.bookmark.mapper.UserMapper;
 import com.bookmark.mapper.UserSettingsMapper;
+import com.bookmark.security.CurrentUserContext;
 import com.bookmark.security.JwtTokenProvider;
 import com.bookmark.service.*;
 import lombok.extern.slf4j.Slf4j;
@@ -53,6 +54,9 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private SystemConfigService systemConfigService;
 
+    @Autowired
+    private UserCacheService userCacheService;
+
     @Override
     @Transactional
     public LoginResponse register(RegisterRequest request) {
@@ -148,6 +152,7 @@ public class UserServiceImpl implements UserService {
             // Update last login time
             user.setLastLoginTime(LocalDateTime.now());
             userMapper.updateById(user);
+            userCacheService.evict(user.getId());
 
             // 生成双 Token
             LoginResponse response = getLoginResponse(user);
@@ -212,6 +217,12 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User getCurrentUser() {
+        // 同一请求内复用已解析的用户
+        User contextUser = CurrentUserContext.get();
+        if (contextUser != null) {
+            return contextUser;
+        }
+
         try {
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
@@ -230,7 +241,7 @@ public class UserServiceImpl implements UserService {
             // 首先尝试按 ID 查询（JWT token 中存储的是用户 ID）
             try {
                 Long userId = Long.parseLong(identifier);
-                user = userMapper.selectById(userId);
+                user = userCacheService.getUser(userId);
             } catch (NumberFormatException e) {
                 // 不是数字，按邮箱查询
             }
@@ -244,6 +255,7 @@ public class UserServiceImpl implements UserService {
                 throw new RuntimeException("用户不存在，请重新登录");
             }
 
+            CurrentUserContext.set(user);
             return user;
         } catch (RuntimeException e) {
             throw e;
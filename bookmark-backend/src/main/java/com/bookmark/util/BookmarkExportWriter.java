@@ -0,0 +1,343 @@
+package com.bookmark.util;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONUtil;
+import com.bookmark.entity.Bookmark;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 书签导出写出器：逐条写出，不缓存书签列表
+ * - NDJSON：每行一个书签 JSON
+ * - HTML：Netscape 书签格式，可被 Chrome / Edge / Firefox 导入，分类对应文件夹（要求书签按分类有序）
+ * - CSV：带 UTF-8 BOM，便于 Excel 直接打开
+ */
+public abstract class BookmarkExportWriter {
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        HTML("text/html", "html"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format of(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new RuntimeException("不支持的导出格式: " + value);
+        }
+    }
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    protected final Writer writer;
+
+    protected BookmarkExportWriter(OutputStream out) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+    }
+
+    /**
+     * 创建指定格式的写出器
+     *
+     * @param categoryNames 分类ID -> 名称
+     */
+    public static BookmarkExportWriter create(Format format, OutputStream out, Map<Long, String> categoryNames,
+            ObjectMapper objectMapper) {
+        switch (format) {
+            case HTML:
+                return new HtmlWriter(out, categoryNames);
+            case CSV:
+                return new CsvWriter(out, categoryNames);
+            default:
+                return new NdjsonWriter(out, objectMapper);
+        }
+    }
+
+    /**
+     * 写出文件头
+     */
+    public abstract void start() throws IOException;
+
+    /**
+     * 写出一条书签，IO 异常包装为 UncheckedIOException（用于数据库逐行回调）
+     */
+    public void write(Bookmark bookmark) {
+        try {
+            writeBookmark(bookmark);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 写出文件尾并刷新缓冲（不关闭底层输出流）
+     */
+    public void finish() throws IOException {
+        writeEnd();
+        writer.flush();
+    }
+
+    protected abstract void writeBookmark(Bookmark bookmark) throws IOException;
+
+    protected abstract void writeEnd() throws IOException;
+
+    /**
+     * 把 JSON 数组格式的标签转成逗号分隔
+     */
+    protected static String joinTags(String tags) {
+        if (tags == null || tags.isEmpty()) {
+            return "";
+        }
+        try {
+            JSONArray array = JSONUtil.parseArray(tags);
+            return String.join(",", array.toList(String.class));
+        } catch (Exception e) {
+            return tags;
+        }
+    }
+
+    protected static String formatTime(LocalDateTime time) {
+        return time != null ? time.format(TIME_FORMAT) : "";
+    }
+
+    private static class NdjsonWriter extends BookmarkExportWriter {
+        private final ObjectMapper objectMapper;
+
+        NdjsonWriter(OutputStream out, ObjectMapper objectMapper) {
+            super(out);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        protected void writeBookmark(Bookmark bookmark) throws IOException {
+            writer.write(objectMapper.writeValueAsString(bookmark));
+            writer.write('\n');
+        }
+
+        @Override
+        protected void writeEnd() {
+        }
+    }
+
+    private static class HtmlWriter extends BookmarkExportWriter {
+        private final Map<Long, String> categoryNames;
+        private boolean started;
+        private Long currentCategoryId;
+        private boolean inFolder;
+
+        HtmlWriter(OutputStream out, Map<Long, String> categoryNames) {
+            super(out);
+            this.categoryNames = categoryNames;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write("<!DOCTYPE NETSCAPE-Bookmark-file-1>\n"
+                    + "<!-- This is an automatically generated file.\n"
+                    + "     It will be read and overwritten.\n"
+                    + "     DO NOT EDIT! -->\n"
+                    + "<META HTTP-EQUIV=\"Content-Type\" CONTENT=\"text/html; charset=UTF-8\">\n"
+                    + "<TITLE>Bookmarks</TITLE>\n"
+                    + "<H1>Bookmarks</H1>\n"
+                    + "<DL><p>\n");
+        }
+
+        @Override
+        protected void writeBookmark(Bookmark bookmark) throws IOException {
+            Long categoryId = bookmark.getCategoryId() != null && categoryNames.containsKey(bookmark.getCategoryId())
+                    ? bookmark.getCategoryId() : null;
+            if (!started || !Objects.equals(categoryId, currentCategoryId)) {
+                started = true;
+                currentCategoryId = categoryId;
+                closeFolder();
+                if (categoryId != null) {
+                    writer.write("    <DT><H3>");
+                    writer.write(escape(categoryNames.get(categoryId)));
+                    writer.write("</H3>\n    <DL><p>\n");
+                    inFolder = true;
+                }
+            }
+
+            String indent = inFolder ? "        " : "    ";
+            writer.write(indent);
+            writer.write("<DT><A HREF=\"");
+            writer.write(escape(bookmark.getUrl()));
+            writer.write('"');
+            if (bookmark.getCreateTime() != null) {
+                writer.write(" ADD_DATE=\"");
+                writer.write(String.valueOf(toEpochSecond(bookmark.getCreateTime())));
+                writer.write('"');
+            }
+            if (bookmark.getUpdateTime() != null) {
+                writer.write(" LAST_MODIFIED=\"");
+                writer.write(String.valueOf(toEpochSecond(bookmark.getUpdateTime())));
+                writer.write('"');
+            }
+            if (bookmark.getIconUrl() != null && !bookmark.getIconUrl().isEmpty()) {
+                writer.write(" ICON_URI=\"");
+                writer.write(escape(bookmark.getIconUrl()));
+                writer.write('"');
+            }
+            String tags = joinTags(bookmark.getTags());
+            if (!tags.isEmpty()) {
+                writer.write(" TAGS=\"");
+                writer.write(escape(tags));
+                writer.write('"');
+            }
+            writer.write('>');
+            writer.write(escape(bookmark.getTitle()));
+            writer.write("</A>\n");
+            if (bookmark.getDescription() != null && !bookmark.getDescription().isEmpty()) {
+                writer.write(indent);
+                writer.write("<DD>");
+                writer.write(escape(bookmark.getDescription()));
+                writer.write('\n');
+            }
+        }
+
+        @Override
+        protected void writeEnd() throws IOException {
+            closeFolder();
+            writer.write("</DL><p>\n");
+        }
+
+        private void closeFolder() throws IOException {
+            if (inFolder) {
+                writer.write("    </DL><p>\n");
+                inFolder = false;
+            }
+        }
+
+        private long toEpochSecond(LocalDateTime time) {
+            return time.atZone(ZoneId.systemDefault()).toEpochSecond();
+        }
+
+        private String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            StringBuilder sb = new StringBuilder(value.length() + 16);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&':
+                        sb.append("&amp;");
+                        break;
+                    case '<':
+                        sb.append("&lt;");
+                        break;
+                    case '>':
+                        sb.append("&gt;");
+                        break;
+                    case '"':
+                        sb.append("&quot;");
+                        break;
+                    case '\r':
+                    case '\n':
+                        sb.append(' ');
+                        break;
+                    default:
+                        sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    private static class CsvWriter extends BookmarkExportWriter {
+        private final Map<Long, String> categoryNames;
+
+        CsvWriter(OutputStream out, Map<Long, String> categoryNames) {
+            super(out);
+            this.categoryNames = categoryNames;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write('\uFEFF');
+            writer.write("title,url,description,category,tags,is_favorite,visit_count,create_time\r\n");
+        }
+
+        @Override
+        protected void writeBookmark(Bookmark bookmark) throws IOException {
+            writeField(bookmark.getTitle());
+            writer.write(',');
+            writeField(bookmark.getUrl());
+            writer.write(',');
+            writeField(bookmark.getDescription());
+            writer.write(',');
+            writeField(bookmark.getCategoryId() != null ? categoryNames.get(bookmark.getCategoryId()) : null);
+            writer.write(',');
+            writeField(joinTags(bookmark.getTags()));
+            writer.write(',');
+            writeField(bookmark.getIsFavorite() != null ? String.valueOf(bookmark.getIsFavorite()) : "0");
+            writer.write(',');
+            writeField(bookmark.getVisitCount() != null ? String.valueOf(bookmark.getVisitCount()) : "0");
+            writer.write(',');
+            writeField(formatTime(bookmark.getCreateTime()));
+            writer.write("\r\n");
+        }
+
+        @Override
+        protected void writeEnd() {
+        }
+
+        /**
+         * 按 RFC 4180 转义；以公式字符开头的值加单引号前缀，防止表格软件执行公式
+         */
+        private void writeField(String value) throws IOException {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@') {
+                value = "'" + value;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
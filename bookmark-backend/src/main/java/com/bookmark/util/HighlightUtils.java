@@ -0,0 +1,109 @@
+package com.bookmark.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 搜索结果高亮工具（ES 以外的搜索引擎使用）
+ */
+public final class HighlightUtils {
+
+    private HighlightUtils() {
+    }
+
+    /**
+     * 按空白拆分关键词，并把 excluded 中的字符视为分隔符
+     */
+    public static List<String> splitTerms(String keyword, String excluded) {
+        if (keyword == null || keyword.isBlank()) {
+            return Collections.emptyList();
+        }
+        StringBuilder cleaned = new StringBuilder(keyword.length());
+        for (char c : keyword.toCharArray()) {
+            cleaned.append(excluded.indexOf(c) >= 0 ? ' ' : c);
+        }
+        List<String> terms = new ArrayList<>();
+        for (String term : cleaned.toString().trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * 用 &lt;em&gt; 标记文本中的关键词，截取第一个命中附近的片段；没有命中返回 null
+     * 返回值为 HTML 片段：除 &lt;em&gt; 标记外的文本均已转义（与 ES 高亮的 html encoder 一致）
+     */
+    public static String mark(String text, List<String> terms, int fragmentSize) {
+        if (text == null || text.isEmpty() || terms.isEmpty()) {
+            return null;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int first = -1;
+        for (String term : terms) {
+            int index = lower.indexOf(term.toLowerCase(Locale.ROOT));
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        if (first < 0) {
+            return null;
+        }
+
+        int start = 0;
+        int end = text.length();
+        if (text.length() > fragmentSize) {
+            start = Math.max(0, first - fragmentSize / 4);
+            end = Math.min(text.length(), start + fragmentSize);
+        }
+        String fragment = text.substring(start, end);
+        String lowerFragment = fragment.toLowerCase(Locale.ROOT);
+
+        StringBuilder marked = new StringBuilder();
+        int pos = 0;
+        while (pos < fragment.length()) {
+            int matchLength = 0;
+            for (String term : terms) {
+                if (lowerFragment.startsWith(term.toLowerCase(Locale.ROOT), pos) && term.length() > matchLength) {
+                    matchLength = term.length();
+                }
+            }
+            if (matchLength > 0) {
+                marked.append("<em>");
+                for (int i = pos; i < pos + matchLength; i++) {
+                    appendEscaped(marked, fragment.charAt(i));
+                }
+                marked.append("</em>");
+                pos += matchLength;
+            } else {
+                appendEscaped(marked, fragment.charAt(pos++));
+            }
+        }
+        return marked.toString();
+    }
+
+    private static void appendEscaped(StringBuilder sb, char c) {
+        switch (c) {
+            case '&':
+                sb.append("&amp;");
+                break;
+            case '<':
+                sb.append("&lt;");
+                break;
+            case '>':
+                sb.append("&gt;");
+                break;
+            case '"':
+                sb.append("&quot;");
+                break;
+            case '\'':
+                sb.append("&#x27;");
+                break;
+            default:
+                sb.append(c);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.bookmark.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 分页结果流式 JSON 输出
+ * 按 Result&lt;PageResponse&gt; 的结构写出 {"code":200,"message":"success","data":{"list":[...],"total":N}}，
+ * 列表元素逐个序列化写入输出流，不在内存中构建整页对象。
+ * 写入第一个元素时才输出响应头部，之前发生的异常仍可由全局异常处理返回正常的错误响应
+ */
+public class JsonStreamWriter {
+
+    private final ObjectMapper objectMapper;
+    private final OutputStream out;
+    private JsonGenerator generator;
+
+    public JsonStreamWriter(ObjectMapper objectMapper, OutputStream out) {
+        this.objectMapper = objectMapper;
+        this.out = out;
+    }
+
+    /**
+     * 写入一个列表元素（用于回调，IO 异常包装为 UncheckedIOException）
+     */
+    public void write(Object item) {
+        try {
+            start();
+            generator.writeObject(item);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 结束列表，写出总数并刷新输出
+     */
+    public void finishPage(long total) throws IOException {
+        start();
+        generator.writeEndArray();
+        generator.writeNumberField("total", total);
+        generator.writeEndObject();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private void start() throws IOException {
+        if (generator != null) {
+            return;
+        }
+        generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.writeStartObject();
+        generator.writeNumberField("code", 200);
+        generator.writeStringField("message", "success");
+        generator.writeObjectFieldStart("data");
+        generator.writeArrayFieldStart("list");
+    }
+}
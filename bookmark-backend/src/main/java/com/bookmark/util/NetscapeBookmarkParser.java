@@ -0,0 +1,420 @@
+package com.bookmark.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 浏览器书签 HTML（Netscape Bookmark File）流式解析器
+ * - 从 Reader 单遍读取，按标签触发文件夹/书签事件，不保存整份文件也不按行切分
+ * - 不依赖换行和缩进，压缩成一行的导出文件同样可以解析
+ * - 只保留 HREF、ADD_DATE 属性和标题文本，ICON 等大属性边读边丢弃，内存占用与文件大小无关
+ * - 文件夹以 &lt;H3&gt; 命名、随后的 &lt;DL&gt; 打开、对应的 &lt;/DL&gt; 关闭
+ */
+public class NetscapeBookmarkParser {
+
+    /**
+     * 标题文本最大长度，超出部分丢弃
+     */
+    private static final int MAX_TEXT_LENGTH = 1024;
+
+    /**
+     * URL 最大长度，超出视为无效链接
+     */
+    private static final int MAX_URL_LENGTH = 8192;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    /**
+     * 解析事件回调
+     */
+    public interface Handler {
+        /**
+         * 进入文件夹
+         */
+        void onFolderStart(String name);
+
+        /**
+         * 离开最近进入的文件夹
+         */
+        void onFolderEnd();
+
+        /**
+         * 读取到书签
+         *
+         * @param url     链接，过长时为 null
+         * @param title   标题（已解码实体、压缩空白）
+         * @param addDate ADD_DATE 属性（秒级时间戳），可能为 null
+         */
+        void onBookmark(String url, String title, String addDate);
+    }
+
+    private enum TextMode {
+        NONE, FOLDER, LINK
+    }
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+
+    private Handler handler;
+    private TextMode textMode = TextMode.NONE;
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder token = new StringBuilder();
+    private String href;
+    private String addDate;
+    private String pendingFolder;
+
+    /**
+     * 每个打开的 &lt;DL&gt; 是否对应一个已触发 onFolderStart 的文件夹
+     */
+    private final Deque<Boolean> listStack = new ArrayDeque<>();
+
+    public NetscapeBookmarkParser(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 解析整个输入，事件按文档顺序同步回调
+     */
+    public void parse(Handler handler) throws IOException {
+        this.handler = handler;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '<') {
+                readTag();
+            } else if (textMode != TextMode.NONE) {
+                appendText((char) c);
+            }
+        }
+
+        // 处理未闭合的元素和文件夹
+        finishElement();
+        flushPendingFolder();
+        while (!listStack.isEmpty()) {
+            if (listStack.pop()) {
+                handler.onFolderEnd();
+            }
+        }
+    }
+
+    private void readTag() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return;
+        }
+        if (c == '!') {
+            skipDeclaration();
+            return;
+        }
+        if (c == '?') {
+            skipUntil('>');
+            return;
+        }
+
+        boolean closing = c == '/';
+        if (closing) {
+            c = read();
+        }
+        if (!Character.isLetter(c)) {
+            // 不是标签，按普通文本处理
+            if (textMode != TextMode.NONE) {
+                appendText('<');
+                if (closing) {
+                    appendText('/');
+                }
+                if (c != -1) {
+                    appendText((char) c);
+                }
+            }
+            return;
+        }
+
+        token.setLength(0);
+        while (c != -1 && Character.isLetterOrDigit(c)) {
+            token.append(Character.toUpperCase((char) c));
+            c = read();
+        }
+        String name = token.toString();
+
+        if (closing) {
+            if (c != '>') {
+                skipUntil('>');
+            }
+            onCloseTag(name);
+            return;
+        }
+
+        boolean isLink = "A".equals(name);
+        if (isLink || "H3".equals(name) || "DL".equals(name)) {
+            finishElement();
+        }
+        if (isLink) {
+            href = null;
+            addDate = null;
+        }
+        readAttributes(c, isLink);
+        onOpenTag(name);
+    }
+
+    private void onOpenTag(String name) {
+        switch (name) {
+            case "H3":
+                // 前一个文件夹后面没有 <DL>，视为空文件夹
+                flushPendingFolder();
+                textMode = TextMode.FOLDER;
+                text.setLength(0);
+                break;
+            case "A":
+                flushPendingFolder();
+                textMode = TextMode.LINK;
+                text.setLength(0);
+                break;
+            case "DL":
+                if (pendingFolder != null) {
+                    handler.onFolderStart(pendingFolder);
+                    pendingFolder = null;
+                    listStack.push(Boolean.TRUE);
+                } else {
+                    listStack.push(Boolean.FALSE);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void onCloseTag(String name) {
+        switch (name) {
+            case "H3":
+            case "A":
+                finishElement();
+                break;
+            case "DL":
+                finishElement();
+                flushPendingFolder();
+                if (!listStack.isEmpty() && listStack.pop()) {
+                    handler.onFolderEnd();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 结束当前的文件夹标题或书签元素（兼容缺少结束标签的情况）
+     */
+    private void finishElement() {
+        if (textMode == TextMode.FOLDER) {
+            pendingFolder = decodeEntities(text.toString()).trim();
+        } else if (textMode == TextMode.LINK) {
+            handler.onBookmark(href != null ? decodeEntities(href).trim() : null,
+                    decodeEntities(text.toString()).trim(), addDate);
+            href = null;
+            addDate = null;
+        }
+        textMode = TextMode.NONE;
+        text.setLength(0);
+    }
+
+    private void flushPendingFolder() {
+        if (pendingFolder != null) {
+            handler.onFolderStart(pendingFolder);
+            handler.onFolderEnd();
+            pendingFolder = null;
+        }
+    }
+
+    /**
+     * 读取标签属性，只保留书签的 HREF 和 ADD_DATE
+     *
+     * @param c 标签名之后的第一个字符
+     */
+    private void readAttributes(int c, boolean isLink) throws IOException {
+        while (true) {
+            while (c != -1 && Character.isWhitespace(c)) {
+                c = read();
+            }
+            if (c == -1 || c == '>') {
+                return;
+            }
+            if (c == '/') {
+                c = read();
+                continue;
+            }
+
+            token.setLength(0);
+            while (c != -1 && c != '=' && c != '>' && !Character.isWhitespace(c)) {
+                token.append(Character.toUpperCase((char) c));
+                c = read();
+            }
+            String attrName = token.toString();
+            while (c != -1 && Character.isWhitespace(c)) {
+                c = read();
+            }
+            if (c != '=') {
+                // 无值属性
+                continue;
+            }
+            c = read();
+            while (c != -1 && Character.isWhitespace(c)) {
+                c = read();
+            }
+
+            boolean keep = isLink && ("HREF".equals(attrName) || "ADD_DATE".equals(attrName));
+            token.setLength(0);
+            boolean overflow = false;
+            if (c == '"' || c == '\'') {
+                int quote = c;
+                while ((c = read()) != -1 && c != quote) {
+                    if (keep) {
+                        overflow |= !appendLimited(token, (char) c, MAX_URL_LENGTH);
+                    }
+                }
+                c = read();
+            } else {
+                while (c != -1 && c != '>' && !Character.isWhitespace(c)) {
+                    if (keep) {
+                        overflow |= !appendLimited(token, (char) c, MAX_URL_LENGTH);
+                    }
+                    c = read();
+                }
+            }
+
+            if (keep) {
+                String value = overflow ? null : token.toString();
+                if ("HREF".equals(attrName)) {
+                    href = value;
+                } else {
+                    addDate = value;
+                }
+            }
+        }
+    }
+
+    /**
+     * 追加标题文本，连续空白压缩为一个空格
+     */
+    private void appendText(char c) {
+        if (Character.isWhitespace(c)) {
+            if (text.length() == 0 || text.charAt(text.length() - 1) == ' ') {
+                return;
+            }
+            c = ' ';
+        }
+        appendLimited(text, c, MAX_TEXT_LENGTH);
+    }
+
+    private boolean appendLimited(StringBuilder sb, char c, int max) {
+        if (sb.length() >= max) {
+            return false;
+        }
+        sb.append(c);
+        return true;
+    }
+
+    /**
+     * 跳过 &lt;!DOCTYPE ...&gt; 和 &lt;!-- ... --&gt;
+     */
+    private void skipDeclaration() throws IOException {
+        int c = read();
+        if (c == '-') {
+            c = read();
+            if (c == '-') {
+                int dashes = 0;
+                while ((c = read()) != -1) {
+                    if (c == '>' && dashes >= 2) {
+                        return;
+                    }
+                    dashes = c == '-' ? dashes + 1 : 0;
+                }
+                return;
+            }
+        }
+        if (c != '>') {
+            skipUntil('>');
+        }
+    }
+
+    private void skipUntil(char target) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != target) {
+            // 丢弃
+        }
+    }
+
+    private int read() throws IOException {
+        if (pos >= limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[pos++];
+    }
+
+    /**
+     * 解码常见的 HTML 实体
+     */
+    public static String decodeEntities(String value) {
+        if (value == null || value.indexOf('&') < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        int i = 0;
+        while (i < value.length()) {
+            char c = value.charAt(i);
+            int end = c == '&' ? value.indexOf(';', i) : -1;
+            if (end < 0 || end - i > 10) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+            String entity = value.substring(i + 1, end);
+            String decoded = decodeEntity(entity);
+            if (decoded == null) {
+                sb.append(c);
+                i++;
+            } else {
+                sb.append(decoded);
+                i = end + 1;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String decodeEntity(String entity) {
+        switch (entity) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            case "nbsp":
+                return " ";
+            default:
+                break;
+        }
+        if (entity.startsWith("#")) {
+            try {
+                int codePoint = entity.startsWith("#x") || entity.startsWith("#X")
+                        ? Integer.parseInt(entity.substring(2), 16)
+                        : Integer.parseInt(entity.substring(1));
+                return new String(Character.toChars(codePoint));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
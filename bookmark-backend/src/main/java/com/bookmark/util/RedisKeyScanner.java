@@ -0,0 +1,63 @@
+package com.bookmark.util;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Redis Key 扫描工具
+ * 使用 SCAN 游标分批遍历匹配的 key，代替会阻塞 Redis 的 KEYS 命令
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisKeyScanner {
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * 每次 SCAN 的 COUNT 提示值，同时也是回调的批大小
+     */
+    @Value("${bookmark.redis.scan-batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 按批扫描匹配的 key
+     * SCAN 可能返回重复的 key，调用方的处理需要是幂等的
+     *
+     * @param pattern  匹配模式，例如 user:categories:*
+     * @param consumer 每批 key 的处理逻辑
+     * @return 扫描到的 key 总数
+     */
+    public long scan(String pattern, Consumer<List<String>> consumer) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        long total = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() >= batchSize) {
+                    total += batch.size();
+                    consumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            total += batch.size();
+            consumer.accept(batch);
+        }
+        log.debug("SCAN 完成: pattern={}, keys={}", pattern, total);
+        return total;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookmark.util;
+
+import cn.hutool.crypto.SecureUtil;
+
+import java.util.Locale;
+
+/**
+ * 书签 URL 去重工具
+ * url_hash 列保存规范化 URL 的 MD5（32 位小写十六进制），与 sql/bookmark_url_hash.sql 中的回填表达式一致
+ */
+public final class UrlHashUtils {
+
+    private UrlHashUtils() {
+    }
+
+    /**
+     * 规范化 URL 用于去重比较：转小写，去掉协议、www. 前缀和结尾的 /
+     */
+    public static String normalize(String url) {
+        if (url == null) {
+            return "";
+        }
+        return url.toLowerCase(Locale.ROOT)
+                .replaceAll("^https?://", "")
+                .replaceAll("^www\\.", "")
+                .replaceAll("/$", "");
+    }
+
+    /**
+     * 计算 URL 的去重哈希
+     */
+    public static String hash(String url) {
+        return SecureUtil.md5(normalize(url));
+    }
+}
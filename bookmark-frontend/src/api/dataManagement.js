@@ -9,7 +9,8 @@ export const exportBookmarksAPI = () => {
 };
 
 /**
- * 导入书签（JSON body 方式）
+ * 提交导入任务（JSON body 方式），返回任务ID
+ * 导入在后台执行，通过 getImportJobAPI 查询进度
  * @param {Object} data - { importType: 'CHROME'|'EDGE'|'JSON', content: string }
  */
 export const importBookmarksAPI = (data) => {
@@ -17,7 +18,7 @@ export const importBookmarksAPI = (data) => {
 };
 
 /**
- * 导入书签（文件上传方式）
+ * 提交导入任务（文件上传方式），返回任务ID
  * @param {File} file - 要上传的文件
  * @param {String} type - 导入类型: CHROME, EDGE, JSON
  */
@@ -32,6 +33,23 @@ export const importBookmarksFileAPI = (file, type) => {
     });
 };
 
+/**
+ * 查询导入任务进度
+ * @param {Number} jobId - 任务ID
+ * @returns {Promise} status: PENDING|RUNNING|COMPLETED|FAILED|CANCELLED，以及各项统计
+ */
+export const getImportJobAPI = (jobId) => {
+    return request.get(`/data/import/${jobId}`);
+};
+
+/**
+ * 取消导入任务（已导入的书签保留）
+ * @param {Number} jobId - 任务ID
+ */
+export const cancelImportJobAPI = (jobId) => {
+    return request.delete(`/data/import/${jobId}`);
+};
+
 /**
  * 清除所有用户数据（需要密码验证）
  * @param {String} password - 用户密码